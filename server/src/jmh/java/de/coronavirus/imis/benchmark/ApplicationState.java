@@ -0,0 +1,93 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.App;
+import de.coronavirus.imis.SyntheticDataGenerator;
+import de.coronavirus.imis.api.dto.CreateLabTestDTO;
+import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.TestType;
+import de.coronavirus.imis.services.IncidentService;
+import de.coronavirus.imis.services.InstitutionService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+/**
+ * Application on an embedded H2 database with generated data, shared by all threads of a benchmark.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+	/**
+	 * Generated patients that get audited incidents through the services.
+	 */
+	static final int PATIENTS_WITH_INCIDENTS = 100;
+
+	@Param("10000")
+	public int patients;
+
+	@Param("42")
+	public long seed;
+
+	private ConfigurableApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = start("benchmark");
+		final var dialect = getBean(EntityManagerFactory.class).unwrap(SessionFactoryImplementor.class)
+				.getJdbcServices().getDialect();
+		new SyntheticDataGenerator(getBean(JdbcTemplate.class), dialect, seed, LocalDate.of(2020, 4, 30), 90)
+				.generate(patients, 1000, 4);
+
+		final String laboratoryId = getBean(InstitutionService.class).getAllLaboratories().get(0).getId();
+		final IncidentService incidentService = getBean(IncidentService.class);
+		for (int i = 0; i < PATIENTS_WITH_INCIDENTS; i++) {
+			final String patientId = SyntheticDataGenerator.patientId(i);
+			final CreateLabTestDTO testIncident = new CreateLabTestDTO();
+			testIncident.setPatientId(patientId);
+			testIncident.setLaboratoryId(laboratoryId);
+			testIncident.setTestId(SyntheticDataGenerator.testId(i));
+			testIncident.setTestType(TestType.PCR);
+			incidentService.addIncident(testIncident);
+			incidentService.addOrUpdateIncident(patientId, RequestQuarantineDTO.builder()
+					.status(EventType.QUARANTINE_SELECTED)
+					.build());
+			incidentService.addOrUpdateIncident(patientId, RequestQuarantineDTO.builder()
+					.status(EventType.QUARANTINE_MANDATED)
+					.build());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Starts the application on a new embedded H2 database without generated data.
+	 */
+	static ConfigurableApplicationContext start(String database) {
+		return new SpringApplicationBuilder(App.class)
+				.properties(
+						"spring.datasource.url=jdbc:h2:mem:" + database,
+						"spring.jpa.show-sql=false",
+						"server.port=0",
+						"logging.level.root=WARN")
+				.run();
+	}
+
+	public <T> T getBean(Class<T> clazz) {
+		return context.getBean(clazz);
+	}
+
+}
@@ -0,0 +1,35 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.SyntheticDataGenerator;
+import de.coronavirus.imis.domain.Incident;
+import de.coronavirus.imis.services.IncidentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IncidentBenchmark {
+
+	private IncidentService incidentService;
+	private int invocations;
+
+	@Setup
+	public void setUp(ApplicationState application) {
+		incidentService = application.getBean(IncidentService.class);
+	}
+
+	@Benchmark
+	public List<Incident> getLog() {
+		final int patient = invocations++ % ApplicationState.PATIENTS_WITH_INCIDENTS;
+		return incidentService.getLog(SyntheticDataGenerator.patientId(patient), true);
+	}
+}
@@ -0,0 +1,64 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.domain.InstitutionImpl;
+import de.coronavirus.imis.domain.InstitutionType;
+import de.coronavirus.imis.domain.Laboratory;
+import de.coronavirus.imis.repositories.InstitutionRepository;
+import de.coronavirus.imis.services.InstitutionIndex;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead over generated laboratories, without database and Spring context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InstitutionIndexBenchmark {
+
+	private static final String[] NAMES = {"Labor", "Diagnostik", "Zentrallabor", "Praxis", "Institut", "Klinikum"};
+	private static final String[] CITIES = {"Berlin", "Hamburg", "München", "Köln", "Frankfurt", "Stuttgart", "Bernau"};
+
+	@Param({"5000"})
+	private int institutions;
+	@Param({"b", "ber", "zentrallabor"})
+	private String term;
+
+	private InstitutionIndex institutionIndex;
+
+	@Setup
+	public void setUp() {
+		final SplittableRandom random = new SplittableRandom(42);
+		final List<InstitutionImpl> laboratories = new ArrayList<>();
+		for (int i = 0; i < institutions; i++) {
+			final Laboratory laboratory = new Laboratory();
+			laboratory.setId("lab-" + i);
+			laboratory.setCity(CITIES[random.nextInt(CITIES.length)]);
+			laboratory.setName(NAMES[random.nextInt(NAMES.length)] + " " + laboratory.getCity() + " " + i);
+			laboratories.add(laboratory);
+		}
+		final InstitutionRepository institutionRepository = Mockito.mock(InstitutionRepository.class);
+		Mockito.when(institutionRepository.findAll()).thenReturn(laboratories);
+		institutionIndex = new InstitutionIndex(institutionRepository);
+		ReflectionTestUtils.setField(institutionIndex, "limit", 20);
+		institutionIndex.rebuild();
+	}
+
+	@Benchmark
+	public List<String> query() {
+		return institutionIndex.query(term, InstitutionType.LABORATORY);
+	}
+}
@@ -0,0 +1,99 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.config.JwtTokenFilter;
+import de.coronavirus.imis.config.JwtTokenProvider;
+import de.coronavirus.imis.config.SigningKeyService;
+import de.coronavirus.imis.config.domain.SigningKey;
+import de.coronavirus.imis.config.domain.User;
+import de.coronavirus.imis.config.domain.UserRole;
+import de.coronavirus.imis.domain.Laboratory;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling per request, without database and Spring context. The user is always served from
+ * memory, so only parsing and verifying the token is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenFilterBenchmark {
+
+	private static final FilterChain NOOP_CHAIN = (request, response) -> {
+	};
+
+	private UserDetailsService userDetailsService;
+	private JwtTokenFilter filter;
+	private byte[] secretKey;
+	private String token;
+	private MockHttpServletRequest request;
+
+	@Setup
+	public void setUp() {
+		final User user = User.builder()
+				.username("benchmark")
+				.password("")
+				.userRole(UserRole.USER_ROLE_REGULAR)
+				.institution(new Laboratory())
+				.build();
+		userDetailsService = username -> user;
+		final SigningKey key = new SigningKey("benchmark", "YmVuY2htYXJrLWJlbmNobWFyay1iZW5jaG1hcmstYmVuY2g=",
+				Instant.now(), Instant.now().plus(1, ChronoUnit.DAYS));
+		final SigningKeyService signingKeyService = Mockito.mock(SigningKeyService.class);
+		Mockito.when(signingKeyService.getSigningKey()).thenReturn(key);
+		Mockito.when(signingKeyService.findVerificationKey(key.getId())).thenReturn(Optional.of(key));
+		final JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(userDetailsService, signingKeyService);
+		ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", TimeUnit.HOURS.toMillis(1));
+		ReflectionTestUtils.invokeMethod(jwtTokenProvider, "init");
+		secretKey = SigningKeyService.decodeSecret(key);
+		filter = new JwtTokenFilter(jwtTokenProvider);
+
+		token = jwtTokenProvider.createToken(user.getUsername(), List.of("ROLE_LABORATORY"));
+		request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+	}
+
+	@Benchmark
+	public Authentication filter() throws Exception {
+		filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	// What the filter did per request before tokens were verified once: validateToken and getUsername
+	// each parsed the token and verified its signature
+	@Benchmark
+	public Authentication parseTwice() {
+		final Jws<Claims> claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
+		if (claims.getBody().getExpiration().before(new Date())) {
+			return null;
+		}
+		final String username = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody().getSubject();
+		final UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+		return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+	}
+}
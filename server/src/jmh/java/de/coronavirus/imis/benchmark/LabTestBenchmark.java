@@ -0,0 +1,51 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.api.dto.UpdateTestStatusDTO;
+import de.coronavirus.imis.domain.LabTest;
+import de.coronavirus.imis.domain.TestStatus;
+import de.coronavirus.imis.services.InstitutionService;
+import de.coronavirus.imis.services.LabResultService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lab results applied per second, to the generated tests that also have a test incident.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LabTestBenchmark {
+
+	private LabResultService labResultService;
+	private String laboratoryId;
+	private List<String> testIds;
+	private int invocations;
+
+	@Setup
+	public void setUp(ApplicationState application) {
+		labResultService = application.getBean(LabResultService.class);
+		laboratoryId = application.getBean(InstitutionService.class).getAllLaboratories().get(0).getId();
+		testIds = application.getBean(JdbcTemplate.class)
+				.queryForList("select l.test_id from lab_test l join test_incident i "
+						+ "on i.test_id = l.test_id and i.laboratory_id = l.laboratory_id order by l.test_id", String.class);
+	}
+
+	@Benchmark
+	public LabTest applyResult() {
+		final int test = invocations++;
+		return labResultService.applyResult(laboratoryId, UpdateTestStatusDTO.builder()
+				.testId(testIds.get(test % testIds.size()))
+				.status(test % 2 == 0 ? TestStatus.TEST_POSITIVE : TestStatus.TEST_NEGATIVE)
+				.comment("benchmark")
+				.build());
+	}
+}
@@ -0,0 +1,78 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.api.dto.CreatePatientDTO;
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.api.dto.PatientSearchResultDTO;
+import de.coronavirus.imis.api.dto.PatientSimpleSearchParamsDTO;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.services.PatientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PatientBenchmark {
+
+	private PatientService patientService;
+	private int addedPatients;
+
+	@Setup
+	public void setUp(ApplicationState application) {
+		patientService = application.getBean(PatientService.class);
+	}
+
+	@Benchmark
+	public List<Patient> queryPatients() {
+		return patientService.queryPatients(search());
+	}
+
+	@Benchmark
+	public Long countQueryPatients() {
+		return patientService.countQueryPatients(search());
+	}
+
+	@Benchmark
+	public PatientSearchResultDTO queryPatientsPage() {
+		return patientService.queryPatientsPage(search(), false);
+	}
+
+	@Benchmark
+	public List<Patient> queryPatientsSimple() {
+		final PatientSimpleSearchParamsDTO query = new PatientSimpleSearchParamsDTO();
+		query.setQuery("schmidt berlin");
+		query.setOrderBy("lastName");
+		query.setOrder("asc");
+		query.setPageSize(50L);
+		return patientService.queryPatientsSimple(query);
+	}
+
+	@Benchmark
+	public Patient addPatient() {
+		final CreatePatientDTO dto = new CreatePatientDTO();
+		dto.setFirstName("Lena");
+		dto.setLastName("Benchmark" + addedPatients++);
+		dto.setGender("female");
+		dto.setDateOfBirth("1980-02-01");
+		dto.setZip("10115");
+		dto.setCity("Berlin");
+		return patientService.addPatient(dto, true);
+	}
+
+	private static PatientSearchParamsDTO search() {
+		final PatientSearchParamsDTO params = new PatientSearchParamsDTO();
+		params.setCity("Berlin");
+		params.setOrderBy("lastName");
+		params.setOrder("asc");
+		params.setPageSize(50L);
+		return params;
+	}
+}
@@ -0,0 +1,152 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.services.PatientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the patient search with the former query, which joined every PatientEvent of a patient
+ * and had to deduplicate the result with "distinct". The data set has a fixed number of events per
+ * patient, which the former query multiplied, instead of the generated histories of {@link ApplicationState}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PatientQueryBenchmark {
+
+	private static final String[] CITIES = {"Berlin", "Hamburg", "Muenchen", "Koeln", "Frankfurt"};
+	private static final int BATCH_SIZE = 1000;
+
+	private static final String LEGACY_WHERE = "left join PatientEvent pe on pe.patient = pat.id "
+			+ "left join QuarantineIncident qi on qi.patient = pat "
+			+ "where lower(pat.city) like lower(?1) "
+			+ "AND lower(pat.lastName) like lower(?2) "
+			+ "AND ( 1=0 OR lower(qi.eventType) = lower(?3) ) ";
+
+	@Param("100000")
+	public int patients;
+
+	@Param("10")
+	public int eventsPerPatient;
+
+	private ConfigurableApplicationContext context;
+	private PatientService patientService;
+	private EntityManagerFactory entityManagerFactory;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = ApplicationState.start("patientquery");
+		patientService = context.getBean(PatientService.class);
+		entityManagerFactory = context.getBean(EntityManagerFactory.class);
+		generateData(context.getBean(JdbcTemplate.class));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Patient> queryPatients() {
+		return patientService.queryPatients(search());
+	}
+
+	@Benchmark
+	public List<Patient> queryPatientsLegacy() {
+		return legacyQuery("select distinct pat from Patient pat " + LEGACY_WHERE + "order by pat.id asc", Patient.class,
+				query -> query.setMaxResults(search().getPageSize().intValue()).getResultList());
+	}
+
+	@Benchmark
+	public Long countQueryPatients() {
+		return patientService.countQueryPatients(search());
+	}
+
+	@Benchmark
+	public Long countQueryPatientsLegacy() {
+		return legacyQuery("select count(distinct pat) from Patient pat " + LEGACY_WHERE, Long.class,
+				TypedQuery::getSingleResult);
+	}
+
+	// A new entity manager per call, as the services get one per transaction
+	private <T, R> R legacyQuery(String sql, Class<T> resultClass, Function<TypedQuery<T>, R> execute) {
+		final EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			return execute.apply(entityManager.createQuery(sql, resultClass)
+					.setParameter(1, "%Berlin%")
+					.setParameter(2, "%Mustermann1%")
+					.setParameter(3, EventType.QUARANTINE_MANDATED.name()));
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	private static PatientSearchParamsDTO search() {
+		final PatientSearchParamsDTO params = new PatientSearchParamsDTO();
+		params.setCity("Berlin");
+		params.setLastName("Mustermann1");
+		params.setQuarantineStatus(List.of(EventType.QUARANTINE_MANDATED));
+		params.setOrderBy("id");
+		params.setOrder("asc");
+		params.setPageSize(50L);
+		return params;
+	}
+
+	private void generateData(JdbcTemplate jdbcTemplate) {
+		final Timestamp now = Timestamp.from(Instant.now());
+		final List<Object[]> patientRows = new ArrayList<>();
+		final List<Object[]> eventRows = new ArrayList<>();
+		final List<Object[]> quarantineRows = new ArrayList<>();
+		for (int i = 0; i < patients; i++) {
+			final String id = String.format("BENCH%08d", i);
+			final String city = CITIES[i % CITIES.length];
+			patientRows.add(new Object[]{id, "Max", "Mustermann" + i % 100, city, "10" + i % 1000,
+					EventType.SUSPECTED.name(), false, ("max mustermann" + i % 100 + " " + id + " " + city).toLowerCase()});
+			for (int e = 0; e < eventsPerPatient; e++) {
+				eventRows.add(new Object[]{id + "_" + e, id, EventType.values()[e % 12].name(),
+						new Timestamp(now.getTime() - (eventsPerPatient - e) * 60_000L)});
+			}
+			if (i % 10 == 0) {
+				quarantineRows.add(new Object[]{"quarantine_" + id, id, EventType.QUARANTINE_MANDATED.name()});
+			}
+			if (patientRows.size() >= BATCH_SIZE) {
+				insert(jdbcTemplate, patientRows, eventRows, quarantineRows);
+			}
+		}
+		insert(jdbcTemplate, patientRows, eventRows, quarantineRows);
+	}
+
+	private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> patientRows, List<Object[]> eventRows,
+							   List<Object[]> quarantineRows) {
+		jdbcTemplate.batchUpdate("insert into patient (id, first_name, last_name, city, zip, patient_status, confirmed, search_text) "
+				+ "values (?, ?, ?, ?, ?, ?, ?, ?)", patientRows);
+		jdbcTemplate.batchUpdate("insert into patient_event (id, patient_id, event_type, event_timestamp) values (?, ?, ?, ?)", eventRows);
+		jdbcTemplate.batchUpdate("insert into quarantine_incident (id, patient_id, event_type) values (?, ?, ?)", quarantineRows);
+		patientRows.clear();
+		eventRows.clear();
+		quarantineRows.clear();
+	}
+}
@@ -0,0 +1,32 @@
+package de.coronavirus.imis.benchmark;
+
+import de.coronavirus.imis.api.dto.AggregationResultZip;
+import de.coronavirus.imis.services.StatsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatsBenchmark {
+
+	private StatsService statsService;
+
+	@Setup
+	public void setUp(ApplicationState application) {
+		statsService = application.getBean(StatsService.class);
+	}
+
+	@Benchmark
+	public List<AggregationResultZip> resultZipList() {
+		return statsService.resultZipList("0", "99999");
+	}
+}
@@ -0,0 +1,76 @@
+package de.coronavirus.imis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves symptoms, risk areas and pre-illnesses from the former columns of the patient table, which
+ * held the values separated by ";", to their collection tables. Databases created after the move have
+ * no such columns, then nothing happens. Each column is moved in one transaction, so an interrupted
+ * migration is repeated completely on the next start. As long as the schema is recreated on start
+ * (spring.jpa.hibernate.ddl-auto: create), there is never anything to move.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PatientAttributeMigration implements ApplicationRunner {
+
+	private static final String SEPARATOR = ";";
+
+	// Former column of the patient table with the collection table and its value column
+	private static final Map<String, List<String>> COLUMNS = Map.of(
+			"symptoms", List.of("patient_symptom", "symptom"),
+			"risk_areas", List.of("patient_risk_area", "risk_area"),
+			"pre_illnesses", List.of("patient_pre_illness", "pre_illness"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final PlatformTransactionManager transactionManager;
+
+	public void run(ApplicationArguments args) {
+		COLUMNS.forEach((column, target) -> migrate(column, target.get(0), target.get(1)));
+	}
+
+	void migrate(String column, String table, String valueColumn) {
+		final Integer columns = jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+				+ "where lower(table_name) = 'patient' and lower(column_name) = ?", Integer.class, column);
+		if (columns == null || columns == 0) {
+			return;
+		}
+		final Integer moved = new TransactionTemplate(transactionManager).execute(status -> {
+			final List<Object[]> rows = new ArrayList<>();
+			jdbcTemplate.query("select id, " + column + " from patient where " + column + " is not null", resultSet -> {
+				final String id = resultSet.getString(1);
+				for (String value : split(resultSet.getString(2))) {
+					rows.add(new Object[]{id, value});
+				}
+			});
+			jdbcTemplate.batchUpdate("insert into " + table + " (patient_id, " + valueColumn + ") values (?, ?)", rows);
+			return jdbcTemplate.update("update patient set " + column + " = null where " + column + " is not null");
+		});
+		if (moved != null && moved > 0) {
+			log.info("Moved {} of {} patients to {}", column, moved, table);
+		}
+	}
+
+	// Distinct values, the collection tables are keyed by patient and value
+	static Set<String> split(String values) {
+		final Set<String> result = new LinkedHashSet<>();
+		Arrays.stream(values.split(SEPARATOR))
+				.filter(value -> !value.isEmpty())
+				.forEach(result::add);
+		return result;
+	}
+}
@@ -0,0 +1,76 @@
+package de.coronavirus.imis;
+
+import de.coronavirus.imis.services.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves reports stored in the former report columns of lab tests and test incidents, including the
+ * audit rows, to the {@link BlobStore} and references them by hash. Databases created after the
+ * move have no report columns, then nothing happens. Rows are moved one by one, so an interrupted
+ * migration continues on the next start. As long as the schema is recreated on start
+ * (spring.jpa.hibernate.ddl-auto: create), there is never anything to move.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReportBlobMigration implements ApplicationRunner {
+
+	// Tables with their primary key columns
+	private static final Map<String, List<String>> TABLES = Map.of(
+			"lab_test", List.of("id"),
+			"test_incident", List.of("id"),
+			"test_incident_aud", List.of("id", "rev"));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final BlobStore blobStore;
+
+	public void run(ApplicationArguments args) {
+		TABLES.forEach(this::migrate);
+	}
+
+	void migrate(String table, List<String> key) {
+		final Integer columns = jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+				+ "where lower(table_name) = ? and lower(column_name) = 'report'", Integer.class, table);
+		if (columns == null || columns == 0) {
+			return;
+		}
+		final String keyColumns = String.join(", ", key);
+		final String keyCondition = String.join(" = ? and ", key) + " = ?";
+		final List<Object[]> keys = jdbcTemplate.query("select " + keyColumns + " from " + table + " where report is not null",
+				(resultSet, rowNum) -> {
+					final Object[] row = new Object[key.size()];
+					for (int i = 0; i < row.length; i++) {
+						row[i] = resultSet.getObject(i + 1);
+					}
+					return row;
+				});
+		for (Object[] row : keys) {
+			final String hash = jdbcTemplate.query("select report from " + table + " where " + keyCondition, resultSet -> {
+				resultSet.next();
+				try (InputStream report = resultSet.getBinaryStream(1)) {
+					return blobStore.put(report);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, row);
+			final List<Object> arguments = new ArrayList<>(List.of(row));
+			arguments.add(0, hash);
+			jdbcTemplate.update("update " + table + " set report_hash = ?, report = null where " + keyCondition, arguments.toArray());
+		}
+		if (!keys.isEmpty()) {
+			log.info("Moved {} reports of {} to the blob store", keys.size(), table);
+		}
+	}
+}
@@ -0,0 +1,454 @@
+package de.coronavirus.imis;
+
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.IncidentType;
+import de.coronavirus.imis.domain.Illness;
+import de.coronavirus.imis.domain.TestMaterial;
+import de.coronavirus.imis.domain.TestStatus;
+import de.coronavirus.imis.domain.TestType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates patients with event histories, lab tests, quarantine incidents and exposure contacts and inserts
+ * them by JDBC batches, bypassing the services. Every patient is derived from the seed and its index only, so
+ * the same seed and reference date always generate the same data, no matter how it is split into chunks.
+ * <p>
+ * Quarantine incidents get a single audit row each, all in one revision at the time of generation, so the
+ * validity audit strategy finds the row to end when they are updated.
+ */
+@Slf4j
+public class SyntheticDataGenerator {
+
+	/**
+	 * City, lowest and highest zip and population in thousands, which weights the distribution of patients.
+	 */
+	private static final Object[][] CITIES = {
+			{"Berlin", 10115, 14199, 3645}, {"Hamburg", 20095, 22769, 1841}, {"München", 80331, 81929, 1471},
+			{"Köln", 50667, 51149, 1085}, {"Frankfurt am Main", 60306, 60599, 753}, {"Stuttgart", 70173, 70629, 634},
+			{"Düsseldorf", 40210, 40629, 619}, {"Leipzig", 4103, 4357, 587}, {"Dortmund", 44135, 44388, 588},
+			{"Essen", 45127, 45359, 583}, {"Bremen", 28195, 28779, 567}, {"Dresden", 1067, 1328, 554},
+			{"Hannover", 30159, 30669, 536}, {"Nürnberg", 90402, 90491, 518}, {"Bochum", 44787, 44894, 365},
+			{"Kiel", 24103, 24159, 246}, {"Freiburg im Breisgau", 79098, 79117, 230}, {"Saarbrücken", 66111, 66133, 180},
+			{"Saarlouis", 66740, 66740, 35}, {"Homburg", 66424, 66424, 42}, {"Neunkirchen", 66538, 66540, 46}
+	};
+	private static final String[] LAST_NAMES = {"Peters", "Müller", "Schulz", "Schulze", "Weber", "Wagner", "Richter",
+			"Klein", "Bauer", "Schröder", "Lange", "Winkler", "Winter", "Sommer", "Schmitt", "Schmidt", "Berger"};
+	private static final String[] MALE_FIRST_NAMES = {"Peter", "Daniel", "Hans", "Franz", "Karl", "Tim", "Jan", "Jens",
+			"Kai", "Ben", "Fin", "Matthias", "Christopher", "Cornelius", "Konrad"};
+	private static final String[] FEMALE_FIRST_NAMES = {"Jana", "Lisa", "Anna", "Annika", "Petra", "Marie", "Susanne",
+			"Daniela", "Martina", "Emma", "Hanna", "Olivia", "Isabella"};
+	private static final String[] EMAIL_PROVIDERS = {"t-online", "posteo", "gmail", "gmx", "web"};
+	private static final String[] STREETS = {"Hauptstraße", "Schulstraße", "Gartenstraße", "Bahnhofstraße",
+			"Kaiserstraße", "Waldstraße", "Steinstraße", "Hafenstraße", "Poststraße", "Eisenbahnstraße", "Kronenstraße",
+			"Bismarckstraße", "Rosenstraße", "Tulpenweg", "Sonnenweg", "Wintergasse", "Südweg", "Nordstraße"};
+	private static final String[] INSURANCE_COMPANIES = {"AOK", "Barmer", "Techniker Krankenkasse", "IKK Nord",
+			"KNAPPSCHAFT", "DAK Gesundheit"};
+	private static final String[] SYMPTOMS = {"Husten", "Fieber", "Schnupfen", "Erkältung", "Atemschwierigkeiten",
+			"Kopfschmerzen", "Halschmerzen", "Gelenkschmerzen"};
+	private static final String[] RISK_AREAS = {"GrandEst", "Hubei", "Tirol", "Madrid", "New York", "Moscow"};
+	private static final String[] PRE_ILLNESSES = {"Krebserkrankung", "Imunsystemschwäche", "Herz-Kreislauf"};
+	private static final String[] SPEEDS_OF_SYMPTOMS_OUTBREAK = {"Langsam", "Mittel", "Schnell"};
+	private static final String[] CONTACT_CONTEXTS = {"Haushalt", "Arbeitsplatz", "Schule", "Freizeit", "Reise"};
+
+	// Longest possible event history, registrations end that long before the reference date
+	private static final int HISTORY_DAYS = 30;
+	private static final int MAX_CONTACTS = 5;
+	// Patients only have contacts among the patients generated shortly before them, which forms local clusters
+	private static final int CONTACT_NEIGHBOURHOOD = 5000;
+	// Independent random streams of a patient, so each decision can be repeated without the others
+	private static final int ATTRIBUTES = 0;
+	private static final int REGISTRATION = 1;
+	private static final int PROGRESS = 2;
+	private static final int RESULT = 3;
+	private static final int HISTORY = 4;
+	private static final int CONTACTS = 5;
+	private static final int STREAMS = 6;
+
+	private static final String INSERT_PATIENT = "insert into patient (id, first_name, last_name, gender, nationality, "
+			+ "date_of_birth, date_of_death, email, phone_number, street, house_number, zip, city, country, "
+			+ "insurance_company, insurance_membership_number, confirmed, patient_status, flu_immunization, "
+			+ "speed_of_symptoms_outbreak, corona_contacts, weakened_immune_system, creation_timestamp, "
+			+ "date_of_illness, quarantine_until, search_text) "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_SYMPTOM = "insert into patient_symptom (patient_id, symptom) values (?, ?)";
+	private static final String INSERT_RISK_AREA = "insert into patient_risk_area (patient_id, risk_area) values (?, ?)";
+	private static final String INSERT_PRE_ILLNESS = "insert into patient_pre_illness (patient_id, pre_illness) values (?, ?)";
+	private static final String INSERT_LAB_TEST = "insert into lab_test (id, test_id, laboratory_id, test_status, "
+			+ "test_type, test_material, last_update) values (?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_EVENT = "insert into patient_event (id, patient_id, event_type, illness, "
+			+ "event_timestamp, lab_test_id, responsible_doctor_id) values (?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_QUARANTINE = "insert into quarantine_incident (id, patient_id, event_type, "
+			+ "event_date, until, version_timestamp) values (?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_QUARANTINE_AUDIT = "insert into quarantine_incident_aud (id, rev, revtype, "
+			+ "patient_id, event_type, event_date, until, version_timestamp) values (?, ?, 0, ?, ?, ?, ?, ?)";
+	private static final String INSERT_INFECTION_SOURCE = "insert into infection_source (type, id, contact_id, "
+			+ "date_of_contact) values ('person', ?, ?, ?)";
+	private static final String INSERT_EXPOSURE_CONTACT = "insert into exposure_contact (id, source_id, context) "
+			+ "values (?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Dialect dialect;
+	private final long seed;
+	private final LocalDateTime end;
+	private final int days;
+	private final int[] cumulativePopulation;
+
+	/**
+	 * @param referenceDate last day of the generated event histories
+	 * @param days          length of the period in which the patients are registered
+	 */
+	public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, Dialect dialect, long seed, LocalDate referenceDate, int days) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.dialect = dialect;
+		this.seed = seed;
+		this.end = referenceDate.atTime(23, 59);
+		this.days = days;
+		this.cumulativePopulation = new int[CITIES.length];
+		int population = 0;
+		for (int i = 0; i < CITIES.length; i++) {
+			population += (int) CITIES[i][3];
+			cumulativePopulation[i] = population;
+		}
+	}
+
+	public static String patientId(int index) {
+		return String.format("SYN%08d", index);
+	}
+
+	public static String testId(int index) {
+		return "SYN-" + index;
+	}
+
+	/**
+	 * Inserts the patients with the indexes 0 to patients - 1. The lab tests are assigned to the first laboratory
+	 * and the first doctor, so these have to exist.
+	 *
+	 * @param batchSize patients per chunk, each chunk is written with one batch per table
+	 * @param threads   chunks written in parallel
+	 */
+	public void generate(int patients, int batchSize, int threads) {
+		final long start = System.currentTimeMillis();
+		final String laboratoryId = findInstitution("Laboratory");
+		final String doctorId = findInstitution("Doctor");
+		final Map<List<String>, LongAdder> zipStatistic = new ConcurrentHashMap<>();
+		final long revision = insertRevision();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			inChunks(executor, patients, batchSize,
+					(from, to) -> insertPatients(from, to, laboratoryId, doctorId, revision, zipStatistic));
+			log.info("Inserted {} patients after {} ms", patients, System.currentTimeMillis() - start);
+
+			// Contacts can reference patients of any chunk, so they are inserted after all patients
+			final long firstContactId = jdbcTemplate.queryForObject(dialect.getSequenceNextValString("hibernate_sequence"), Long.class);
+			inChunks(executor, patients, batchSize, (from, to) -> insertContacts(from, to, firstContactId));
+			jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + (firstContactId + (long) patients * MAX_CONTACTS));
+		} finally {
+			executor.shutdown();
+		}
+		updateZipStatistic(zipStatistic);
+		log.info("Generated {} patients in {} ms", patients, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Inserts an Envers revision the way Envers numbers them, by identity column or by hibernate_sequence
+	 * depending on the database.
+	 */
+	private long insertRevision() {
+		final long timestamp = System.currentTimeMillis();
+		if ("identity".equals(dialect.getNativeIdentifierGeneratorStrategy())) {
+			final KeyHolder keyHolder = new GeneratedKeyHolder();
+			jdbcTemplate.update(connection -> {
+				final PreparedStatement statement = connection.prepareStatement("insert into revinfo (revtstmp) values (?)", new String[]{"rev"});
+				statement.setLong(1, timestamp);
+				return statement;
+			}, keyHolder);
+			return keyHolder.getKey().longValue();
+		}
+		final long revision = jdbcTemplate.queryForObject(dialect.getSequenceNextValString("hibernate_sequence"), Long.class);
+		jdbcTemplate.update("insert into revinfo (rev, revtstmp) values (?, ?)", revision, timestamp);
+		return revision;
+	}
+
+	private String findInstitution(String type) {
+		return jdbcTemplate.queryForList("select id from institution where dtype = ? order by id", String.class, type).stream()
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No " + type + " to assign the generated lab tests to"));
+	}
+
+	private static void inChunks(ExecutorService executor, int patients, int batchSize, BiConsumer<Integer, Integer> chunk) {
+		final List<Future<?>> futures = IntStream.iterate(0, from -> from < patients, from -> from + batchSize)
+				.mapToObj(from -> executor.submit(() -> chunk.accept(from, Math.min(from + batchSize, patients))))
+				.collect(Collectors.toList());
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("Generating synthetic data failed", e.getCause());
+		}
+	}
+
+	private void insertPatients(int from, int to, String laboratoryId, String doctorId, long revision,
+								Map<List<String>, LongAdder> zipStatistic) {
+		final List<Object[]> patients = new ArrayList<>();
+		final List<Object[]> symptoms = new ArrayList<>();
+		final List<Object[]> riskAreas = new ArrayList<>();
+		final List<Object[]> preIllnesses = new ArrayList<>();
+		final List<Object[]> labTests = new ArrayList<>();
+		final List<Object[]> events = new ArrayList<>();
+		final List<Object[]> quarantines = new ArrayList<>();
+		for (int index = from; index < to; index++) {
+			final SplittableRandom random = random(index, ATTRIBUTES);
+			final SplittableRandom history = random(index, HISTORY);
+			final String id = patientId(index);
+			LocalDateTime time = registration(index);
+			final LocalDateTime registered = time;
+
+			final List<Object[]> patientEvents = new ArrayList<>();
+			patientEvents.add(event(history, id, EventType.SUSPECTED, time, null, null));
+			String labTestId = null;
+			LocalDate quarantineUntil = null;
+			LocalDate dateOfDeath = null;
+			final int progress = progress(index);
+			if (progress >= 1) {
+				time = later(history, time);
+				patientEvents.add(event(history, id, EventType.ORDER_TEST, time, null, doctorId));
+			}
+			if (progress >= 2) {
+				time = later(history, time);
+				labTestId = uuid(history).toString();
+				patientEvents.add(event(history, id, EventType.SCHEDULED_FOR_TESTING, time, labTestId, doctorId));
+			}
+			if (progress >= 3) {
+				time = later(history, time);
+				patientEvents.add(event(history, id, EventType.TEST_SUBMITTED_IN_PROGRESS, time, labTestId, doctorId));
+			}
+			final TestStatus testStatus = progress < 3 ? TestStatus.TEST_SUBMITTED
+					: progress == 3 ? TestStatus.TEST_IN_PROGRESS
+					: result(index);
+			if (progress >= 4) {
+				time = later(history, time);
+				patientEvents.add(event(history, id, testResultEvent(testStatus), time, labTestId, doctorId));
+			}
+			if (labTestId != null) {
+				labTests.add(new Object[]{labTestId, testId(index), laboratoryId, testStatus.ordinal(),
+						TestType.PCR.ordinal(), pick(history, TestMaterial.values()).ordinal(), Timestamp.valueOf(time)});
+			}
+			if (testStatus == TestStatus.TEST_POSITIVE) {
+				time = later(history, time);
+				quarantineUntil = time.toLocalDate().plusDays(14);
+				patientEvents.add(event(history, id, EventType.QUARANTINE_MANDATED, time, labTestId, doctorId));
+				quarantines.add(quarantine(history, id, EventType.QUARANTINE_MANDATED, time, quarantineUntil));
+				final int outcome = history.nextInt(100);
+				if (outcome < 2) {
+					time = later(history, time);
+					dateOfDeath = time.toLocalDate();
+					patientEvents.add(event(history, id, EventType.PATIENT_DEAD, time, null, doctorId));
+				} else if (outcome < 70) {
+					time = later(history, time.plusDays(10));
+					patientEvents.add(event(history, id, EventType.TEST_FINISHED_RECOVERED, time, labTestId, doctorId));
+				}
+			} else if (history.nextInt(100) < 5) {
+				time = later(history, time);
+				quarantines.add(quarantine(history, id, EventType.QUARANTINE_SELECTED, time, null));
+			}
+			events.addAll(patientEvents);
+
+			final EventType status = EventType.valueOf((String) patientEvents.get(patientEvents.size() - 1)[2]);
+			final Object[] patient = patient(random, id, registered, dateOfDeath, quarantineUntil, status,
+					testStatus == TestStatus.TEST_POSITIVE, symptoms, riskAreas, preIllnesses);
+			patients.add(patient);
+			zipStatistic.computeIfAbsent(Arrays.asList((String) patient[11], status.name()), key -> new LongAdder())
+					.increment();
+		}
+		jdbcTemplate.batchUpdate(INSERT_PATIENT, patients);
+		jdbcTemplate.batchUpdate(INSERT_SYMPTOM, symptoms);
+		jdbcTemplate.batchUpdate(INSERT_RISK_AREA, riskAreas);
+		jdbcTemplate.batchUpdate(INSERT_PRE_ILLNESS, preIllnesses);
+		jdbcTemplate.batchUpdate(INSERT_LAB_TEST, labTests);
+		jdbcTemplate.batchUpdate(INSERT_EVENT, events);
+		jdbcTemplate.batchUpdate(INSERT_QUARANTINE, quarantines);
+		jdbcTemplate.batchUpdate(INSERT_QUARANTINE_AUDIT, quarantines.stream()
+				.map(quarantine -> new Object[]{quarantine[0], revision, quarantine[1], quarantine[2], quarantine[3],
+						quarantine[4], quarantine[5]})
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Row of the patient table. The symptoms, risk areas and pre-illnesses are added to the rows of
+	 * their tables.
+	 */
+	private Object[] patient(SplittableRandom random, String id, LocalDateTime registered, LocalDate dateOfDeath,
+							 LocalDate quarantineUntil, EventType status, boolean confirmed, List<Object[]> symptoms,
+							 List<Object[]> riskAreas, List<Object[]> preIllnesses) {
+		final boolean male = random.nextBoolean();
+		final String firstName = pick(random, male ? MALE_FIRST_NAMES : FEMALE_FIRST_NAMES);
+		final String lastName = pick(random, LAST_NAMES);
+		final Object[] city = city(random);
+		final int lowestZip = (int) city[1];
+		final String zip = String.format("%05d", lowestZip + random.nextInt((int) city[2] - lowestZip + 1));
+		final String email = (firstName.charAt(0) + "." + lastName + "@" + pick(random, EMAIL_PROVIDERS) + ".de")
+				.toLowerCase().replace("ä", "ae").replace("ö", "oe").replace("ü", "ue");
+		final String phoneNumber = String.format("0%d%07d", 30 + random.nextInt(970), random.nextInt(10_000_000));
+		final LocalDate dateOfBirth = registered.toLocalDate().minusYears(1 + random.nextInt(95)).minusDays(random.nextInt(365));
+		final String searchText = String.join(" ", firstName, lastName, id, email, phoneNumber, (String) city[0]).toLowerCase();
+		final String street = pick(random, STREETS);
+		final String houseNumber = String.valueOf(1 + random.nextInt(150));
+		final String insuranceCompany = pick(random, INSURANCE_COMPANIES);
+		final String insuranceMembershipNumber = (char) ('A' + random.nextInt(26)) + String.valueOf(100_000_000 + random.nextInt(900_000_000));
+		final boolean fluImmunization = random.nextBoolean();
+		final String speedOfSymptomsOutbreak = pick(random, SPEEDS_OF_SYMPTOMS_OUTBREAK);
+
+		// Drawn in the order of the former columns, so the same seed generates the same patients
+		subset(random, SYMPTOMS).forEach(symptom -> symptoms.add(new Object[]{id, symptom}));
+		final boolean coronaContacts = random.nextBoolean();
+		if (random.nextInt(10) == 0) {
+			riskAreas.add(new Object[]{id, pick(random, RISK_AREAS)});
+		}
+		final boolean weakenedImmuneSystem = random.nextInt(10) == 0;
+		if (random.nextInt(5) == 0) {
+			preIllnesses.add(new Object[]{id, pick(random, PRE_ILLNESSES)});
+		}
+
+		return new Object[]{id, firstName, lastName, male ? "male" : "female", "deutsch",
+				dateOfBirth, dateOfDeath, email, phoneNumber, street, houseNumber, zip, city[0], "DE",
+				insuranceCompany, insuranceMembershipNumber, confirmed, status.name(), fluImmunization,
+				speedOfSymptomsOutbreak, coronaContacts, weakenedImmuneSystem,
+				Timestamp.valueOf(registered), registered.toLocalDate().minusDays(random.nextInt(7)), quarantineUntil,
+				searchText};
+	}
+
+	private void insertContacts(int from, int to, long firstContactId) {
+		final List<Object[]> infectionSources = new ArrayList<>();
+		final List<Object[]> exposureContacts = new ArrayList<>();
+		for (int index = Math.max(from, 1); index < to; index++) {
+			if (progress(index) < 4 || result(index) != TestStatus.TEST_POSITIVE) {
+				continue;
+			}
+			final SplittableRandom random = random(index, CONTACTS);
+			final LocalDate registered = registration(index).toLocalDate();
+			final int contacts = 1 + random.nextInt(MAX_CONTACTS);
+			for (int contact = 0; contact < contacts; contact++) {
+				final long id = firstContactId + (long) index * MAX_CONTACTS + contact;
+				final int contactIndex = index - 1 - random.nextInt(Math.min(index, CONTACT_NEIGHBOURHOOD));
+				infectionSources.add(new Object[]{id, patientId(contactIndex), registered.minusDays(1 + random.nextInt(10))});
+				exposureContacts.add(new Object[]{id, patientId(index), pick(random, CONTACT_CONTEXTS)});
+			}
+		}
+		jdbcTemplate.batchUpdate(INSERT_INFECTION_SOURCE, infectionSources);
+		jdbcTemplate.batchUpdate(INSERT_EXPOSURE_CONTACT, exposureContacts);
+	}
+
+	private void updateZipStatistic(Map<List<String>, LongAdder> generated) {
+		jdbcTemplate.query("select zip, event_type, patient_count from zip_statistic", resultSet -> {
+			generated.computeIfAbsent(Arrays.asList(resultSet.getString(1), resultSet.getString(2)), key -> new LongAdder())
+					.add(resultSet.getLong(3));
+		});
+		jdbcTemplate.update("delete from zip_statistic");
+		jdbcTemplate.batchUpdate("insert into zip_statistic (zip, event_type, patient_count) values (?, ?, ?)",
+				generated.entrySet().stream()
+						.map(entry -> new Object[]{entry.getKey().get(0), entry.getKey().get(1), entry.getValue().sum()})
+						.collect(Collectors.toList()));
+	}
+
+	private SplittableRandom random(int index, int stream) {
+		return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + (long) index * STREAMS + stream);
+	}
+
+	private LocalDateTime registration(int index) {
+		return end.minusDays(HISTORY_DAYS).minusMinutes(random(index, REGISTRATION).nextInt(days * 24 * 60));
+	}
+
+	/**
+	 * Steps of the test procedure a patient has reached, from 0 (only suspected) to 4 (test finished).
+	 */
+	private int progress(int index) {
+		final SplittableRandom random = random(index, PROGRESS);
+		int progress = 0;
+		while (progress < 4 && random.nextInt(100) >= 15) {
+			progress++;
+		}
+		return progress;
+	}
+
+	private TestStatus result(int index) {
+		final int result = random(index, RESULT).nextInt(100);
+		return result < 12 ? TestStatus.TEST_POSITIVE : result < 95 ? TestStatus.TEST_NEGATIVE : TestStatus.TEST_INVALID;
+	}
+
+	private static EventType testResultEvent(TestStatus status) {
+		switch (status) {
+			case TEST_POSITIVE:
+				return EventType.TEST_FINISHED_POSITIVE;
+			case TEST_NEGATIVE:
+				return EventType.TEST_FINISHED_NEGATIVE;
+			default:
+				return EventType.TEST_FINISHED_INVALID;
+		}
+	}
+
+	private static LocalDateTime later(SplittableRandom random, LocalDateTime time) {
+		return time.plusMinutes(30 + random.nextInt(2 * 24 * 60));
+	}
+
+	private static Object[] event(SplittableRandom random, String patientId, EventType eventType, LocalDateTime time,
+								  String labTestId, String doctorId) {
+		return new Object[]{uuid(random).toString(), patientId, eventType.name(), Illness.CORONA.name(),
+				Timestamp.valueOf(time), labTestId, doctorId};
+	}
+
+	private static Object[] quarantine(SplittableRandom random, String patientId, EventType eventType,
+									   LocalDateTime time, LocalDate until) {
+		return new Object[]{IncidentType.quarantine + "_" + uuid(random).toString().replace("-", ""), patientId,
+				eventType.name(), time.toLocalDate(), until, Timestamp.valueOf(time)};
+	}
+
+	private Object[] city(SplittableRandom random) {
+		final int position = Arrays.binarySearch(cumulativePopulation,
+				random.nextInt(cumulativePopulation[cumulativePopulation.length - 1]) + 1);
+		return CITIES[position >= 0 ? position : -position - 1];
+	}
+
+	private static List<String> subset(SplittableRandom random, String[] values) {
+		return Arrays.stream(values)
+				.filter(value -> random.nextInt(3) == 0)
+				.collect(Collectors.toList());
+	}
+
+	private static <T> T pick(SplittableRandom random, T[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static UUID uuid(SplittableRandom random) {
+		return new UUID(random.nextLong(), random.nextLong());
+	}
+}
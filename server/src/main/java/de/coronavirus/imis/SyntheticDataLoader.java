@@ -0,0 +1,49 @@
+package de.coronavirus.imis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+
+/**
+ * Replaces the sample patients of the {@link TestDataLoader} with generated ones, e.g.
+ * --spring.profiles.active=development,synthetic-data --imis.synthetic-data.patients=1000000
+ */
+@Component
+@Profile(SyntheticDataLoader.PROFILE)
+@Order(1)
+@Slf4j
+@RequiredArgsConstructor
+public class SyntheticDataLoader implements ApplicationRunner {
+
+	public static final String PROFILE = "synthetic-data";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManagerFactory entityManagerFactory;
+
+	@Value("${imis.synthetic-data.patients:100000}")
+	private int patients;
+	@Value("${imis.synthetic-data.seed:42}")
+	private long seed;
+	@Value("${imis.synthetic-data.days:90}")
+	private int days;
+	@Value("${imis.synthetic-data.batch-size:1000}")
+	private int batchSize;
+	@Value("${imis.synthetic-data.threads:4}")
+	private int threads;
+
+	public void run(ApplicationArguments args) {
+		log.info("Generating {} patients with seed {}", patients, seed);
+		final var dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		new SyntheticDataGenerator(jdbcTemplate, dialect, seed, LocalDate.now(), days).generate(patients, batchSize, threads);
+	}
+}
@@ -16,6 +16,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
@@ -23,6 +26,7 @@ import java.io.*;
 
 
 @Component
+@Order(0)
 @Slf4j
 @RequiredArgsConstructor
 public class TestDataLoader implements ApplicationRunner {
@@ -31,10 +35,12 @@ public class TestDataLoader implements ApplicationRunner {
 	private final PatientService patientService;
 	private final InstitutionService institutionService;
 	private final LabTestService labTestService;
+	private final LabResultService labResultService;
 	private final PatientEventService eventService;
 	private final StatsService statsService;
 	private final UserRepository userRepository;
 	private final PasswordEncoder encoder;
+	private final Environment environment;
 
 	private static final ObjectMapper mapper = new ObjectMapper();
 
@@ -59,10 +65,13 @@ public class TestDataLoader implements ApplicationRunner {
 		log.info("Creating test data");
 		try {
 
-			log.info("Inserting patients");
-			for (int i = 0; i < 250; i++) {
-				var createPersonDTO = (CreatePatientDTO) makeDTO("persons" + File.separator + "person" + i + ".json", CreatePatientDTO.class);
-				patientService.addPatient(createPersonDTO, true);
+			// The SyntheticDataLoader generates the patients instead
+			if (!environment.acceptsProfiles(Profiles.of(SyntheticDataLoader.PROFILE))) {
+				log.info("Inserting patients");
+				for (int i = 0; i < 250; i++) {
+					var createPersonDTO = (CreatePatientDTO) makeDTO("persons" + File.separator + "person" + i + ".json", CreatePatientDTO.class);
+					patientService.addPatient(createPersonDTO, true);
+				}
 			}
 
 			// SETUP OUR WORLD
@@ -152,7 +161,7 @@ public class TestDataLoader implements ApplicationRunner {
 					.comment(comment)
 					.testId(testId)
 					.build();
-			labTestService.updateTestStatus(laboratory.getId(), updateTestStatus);
+			labResultService.applyResult(laboratory.getId(), updateTestStatus);
 
 			// HEALTH OFFICE WANTS TO SEE ALL DATA
 			var allPatients = patientService.getAllPatients();
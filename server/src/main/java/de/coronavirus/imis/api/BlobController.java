@@ -0,0 +1,88 @@
+package de.coronavirus.imis.api;
+
+import de.coronavirus.imis.api.dto.BlobDTO;
+import de.coronavirus.imis.api.exception.BlobNotFoundException;
+import de.coronavirus.imis.api.exception.PayloadTooLargeException;
+import de.coronavirus.imis.services.BlobStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams blobs, e.g. lab reports, from and to the blob store. The request body of an upload is the
+ * raw content, the returned hash is then referenced by e.g. the reportHash of a test status update.
+ * Who may upload and download is restricted like for lab reports, see SpringSecurityConfig.
+ */
+@RestController
+@RequestMapping("/api/blobs")
+@RequiredArgsConstructor
+public class BlobController {
+
+	private final BlobStore blobStore;
+	@Value("${imis.blob-store.max-upload-size:10485760}")
+	private long maxUploadSize;
+
+	@PostMapping(consumes = MediaType.ALL_VALUE)
+	public BlobDTO upload(InputStream body, HttpServletRequest request) throws IOException {
+		if (request.getContentLengthLong() > maxUploadSize) {
+			throw new PayloadTooLargeException("Blobs are limited to " + maxUploadSize + " bytes");
+		}
+		// the length is not known for chunked uploads, the store stops reading once the limit is exceeded
+		return new BlobDTO(blobStore.put(new SizeLimitedInputStream(body, maxUploadSize)));
+	}
+
+	@GetMapping("/{hash}")
+	public void download(@PathVariable("hash") String hash, HttpServletResponse response) throws IOException {
+		try (InputStream content = blobStore.get(hash).orElseThrow(() -> new BlobNotFoundException("No blob " + hash))) {
+			response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+			response.setHeader(HttpHeaders.ETAG, '"' + hash + '"');
+			// content never changes under its hash
+			response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+			content.transferTo(response.getOutputStream());
+		}
+	}
+
+	private static class SizeLimitedInputStream extends FilterInputStream {
+		private long remaining;
+
+		SizeLimitedInputStream(InputStream in, long limit) {
+			super(in);
+			this.remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int read = super.read();
+			count(read < 0 ? -1 : 1);
+			return read;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			final int read = super.read(buffer, offset, length);
+			count(read);
+			return read;
+		}
+
+		private void count(int read) {
+			if (read > 0) {
+				remaining -= read;
+			}
+			if (remaining < 0) {
+				throw new PayloadTooLargeException("Blob exceeds the upload limit");
+			}
+		}
+	}
+}
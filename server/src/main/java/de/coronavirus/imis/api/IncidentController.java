@@ -11,6 +11,8 @@ To ease migration, incidents are currently automatically created when
 
  */
 
+import de.coronavirus.imis.api.dto.IncidentAsOfParamsDTO;
+import de.coronavirus.imis.api.dto.IncidentTimelineDTO;
 import de.coronavirus.imis.domain.Incident;
 import de.coronavirus.imis.domain.IncidentType;
 import de.coronavirus.imis.domain.QuarantineIncident;
@@ -18,10 +20,14 @@ import de.coronavirus.imis.services.IncidentService;
 import lombok.AllArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/incidents")
@@ -60,9 +66,22 @@ public class IncidentController {
 		return incidentService.getLog(patientId, true);
 	}
 
+	@GetMapping("/patient/{id}/timeline")
+	public IncidentTimelineDTO getPatientTimeline(@PathVariable("id") String patientId,
+												  @RequestParam(value = "types", required = false) Set<IncidentType> incidentTypes,
+												  @RequestParam(value = "after", required = false) String after,
+												  @RequestParam(value = "limit", defaultValue = "50") int limit) {
+		return incidentService.getTimeline(patientId, incidentTypes, after, limit);
+	}
+
+	@PostMapping("/{type}/as-of")
+	public List<Incident> getAsOf(@PathVariable("type") IncidentType incidentType, @RequestBody IncidentAsOfParamsDTO params) {
+		return incidentService.getAsOf(incidentType, params.getTimestamp(), params.getPatientIds());
+	}
+
 	@GetMapping("/{type}/patient/{id}/log")
 	public List<Incident> getPatientLogByType(@PathVariable("type") IncidentType incidentType, @PathVariable("id") String patientId) {
-		return incidentService.getLog(incidentType.IMPLEMENTATION, patientId, true);
+		return incidentService.getLog(incidentType, patientId, true);
 	}
 
 }
@@ -4,6 +4,7 @@ import de.coronavirus.imis.api.dto.CreateLabTestDTO;
 import de.coronavirus.imis.api.dto.UpdateTestStatusDTO;
 import de.coronavirus.imis.domain.LabTest;
 import de.coronavirus.imis.services.IncidentService;
+import de.coronavirus.imis.services.LabResultService;
 import de.coronavirus.imis.services.LabTestService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +20,7 @@ public class LabTestController {
 
 	private final LabTestService service;
 	private final IncidentService incidentService;
+	private final LabResultService labResultService;
 
 	@PostMapping
 	public ResponseEntity<LabTest> createTestForPatient(@RequestBody CreateLabTestDTO createLabTestRequest) {
@@ -40,9 +42,6 @@ public class LabTestController {
 
 	@PutMapping("/{laboratoryId}")
 	public ResponseEntity<LabTest> updateTestStatus(@PathVariable("laboratoryId") String laboratoryId, @RequestBody UpdateTestStatusDTO statusDTO) {
-		incidentService.updateIncident(laboratoryId, statusDTO);
-		return ResponseEntity.ok(service.updateTestStatus(
-				laboratoryId, statusDTO
-		));
+		return ResponseEntity.ok(labResultService.applyResult(laboratoryId, statusDTO));
 	}
 }
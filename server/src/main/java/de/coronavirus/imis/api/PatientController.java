@@ -6,14 +6,22 @@ import de.coronavirus.imis.domain.Patient;
 import de.coronavirus.imis.domain.PatientEvent;
 import de.coronavirus.imis.services.IncidentService;
 import de.coronavirus.imis.services.PatientEventService;
+import de.coronavirus.imis.services.PatientExportService;
+import de.coronavirus.imis.services.PatientImportService;
 import de.coronavirus.imis.services.PatientService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -23,7 +31,12 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class PatientController {
 
+	public static final String NEXT_PAGE_HEADER = "X-Next-Page-After";
+	public static final String NDJSON_VALUE = "application/x-ndjson";
+
 	private final PatientService patientService;
+	private final PatientImportService patientImportService;
+	private final PatientExportService patientExportService;
 	private final IncidentService incidentService;
 	private final PatientEventService eventService;
 
@@ -39,6 +52,12 @@ public class PatientController {
 		return ResponseEntity.ok(patient);
 	}
 
+	@PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE, NDJSON_VALUE})
+	@PreAuthorize("hasAnyRole('CLINIC', 'DOCTORS_OFFICE', 'TEST_SITE', 'DEPARTMENT_OF_HEALTH')")
+	public PatientImportResultDTO addPatients(InputStream body) throws IOException {
+		return patientImportService.importPatients(body, true);
+	}
+
 	@GetMapping("/{id}")
 	public ResponseEntity<Patient> getPatientForId(@PathVariable("id") String id) {
 		return patientService.findPatientById(id).map(ResponseEntity::ok)
@@ -69,8 +88,12 @@ public class PatientController {
 
 	@PostMapping("/query")
 	@PreAuthorize("hasAnyRole('CLINIC', 'DEPARTMENT_OF_HEALTH', 'DOCTORS_OFFICE', 'TEST_SITE')")
-	public List<Patient> queryPatients(@RequestBody final PatientSearchParamsDTO patientSearchParamsDTO) {
-		return patientService.queryPatients(patientSearchParamsDTO);
+	public ResponseEntity<List<Patient>> queryPatients(@RequestBody final PatientSearchParamsDTO patientSearchParamsDTO) {
+		var patients = patientService.queryPatients(patientSearchParamsDTO);
+		var response = ResponseEntity.ok();
+		patientService.getNextPageToken(patientSearchParamsDTO, patients)
+				.ifPresent(token -> response.header(NEXT_PAGE_HEADER, token));
+		return response.body(patients);
 	}
 
 	@PostMapping("/query/count")
@@ -79,6 +102,26 @@ public class PatientController {
 		return patientService.countQueryPatients(patientSearchParamsDTO);
 	}
 
+	@PostMapping("/query/page")
+	@PreAuthorize("hasAnyRole('CLINIC', 'DEPARTMENT_OF_HEALTH', 'DOCTORS_OFFICE', 'TEST_SITE')")
+	public PatientSearchResultDTO queryPatientsPage(@RequestBody final PatientSearchParamsDTO patientSearchParamsDTO,
+													@RequestParam(defaultValue = "false") boolean estimateCount) {
+		return patientService.queryPatientsPage(patientSearchParamsDTO, estimateCount);
+	}
+
+	@PostMapping("/export")
+	@PreAuthorize("hasAnyRole('CLINIC', 'DEPARTMENT_OF_HEALTH', 'DOCTORS_OFFICE', 'TEST_SITE')")
+	public void exportPatients(@RequestBody final PatientSearchParamsDTO patientSearchParamsDTO,
+							   @RequestParam(defaultValue = "NDJSON") PatientExportService.Format format,
+							   HttpServletResponse response) throws IOException {
+		final boolean csv = format == PatientExportService.Format.CSV;
+		response.setContentType(csv ? "text/csv;charset=UTF-8" : NDJSON_VALUE);
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+				.filename(csv ? "patients.csv" : "patients.ndjson")
+				.build().toString());
+		patientExportService.export(patientSearchParamsDTO, format, response.getOutputStream());
+	}
+
 	@PostMapping("/quarantine/{id}")
 	@PreAuthorize("hasAnyRole('DEPARTMENT_OF_HEALTH')")
 	public ResponseEntity<Patient> requestQuarantine(@PathVariable("id") String patientId, @RequestBody RequestQuarantineDTO statusDTO) {
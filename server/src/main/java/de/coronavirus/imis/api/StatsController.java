@@ -1,9 +1,12 @@
 package de.coronavirus.imis.api;
 
 import de.coronavirus.imis.api.dto.AggregationResultZip;
+import de.coronavirus.imis.api.dto.ZipStatisticsRebuildDTO;
 import de.coronavirus.imis.services.StatsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,4 +25,10 @@ public class StatsController {
 	) {
 		return statsService.resultZipList(lowerBounds, upperBounds);
 	}
+
+	@PostMapping("/rebuild")
+	@PreAuthorize("hasAuthority('USER_ROLE_ADMIN')")
+	public ZipStatisticsRebuildDTO rebuildZipStatistics() {
+		return statsService.rebuildZipStatistics();
+	}
 }
@@ -0,0 +1,13 @@
+package de.coronavirus.imis.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlobDTO {
+	// SHA-256 of the content, e.g. the reportHash of an UpdateTestStatusDTO
+	private String hash;
+}
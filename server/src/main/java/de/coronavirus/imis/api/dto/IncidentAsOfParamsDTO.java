@@ -0,0 +1,12 @@
+package de.coronavirus.imis.api.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+public class IncidentAsOfParamsDTO {
+	private LocalDateTime timestamp;
+	private Set<String> patientIds;
+}
@@ -0,0 +1,18 @@
+package de.coronavirus.imis.api.dto;
+
+import de.coronavirus.imis.domain.Incident;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentTimelineDTO {
+	// incident versions, latest first
+	private List<Incident> incidents;
+	// page token for the after parameter of the timeline, null on the last page
+	private String nextPageAfter;
+}
@@ -0,0 +1,37 @@
+package de.coronavirus.imis.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class PatientImportResultDTO {
+	private int created;
+	private int failed;
+	// one row per input row, in input order
+	private List<Row> rows = new ArrayList<>();
+
+	public void addCreated(int index, String patientId) {
+		rows.add(new Row(index, patientId, null));
+		created++;
+	}
+
+	public void addFailed(int index, String error) {
+		rows.add(new Row(index, null, error));
+		failed++;
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Row {
+		// position of the row in the request, starting at 0
+		private int index;
+		// id of the created patient, null if the row failed
+		private String patientId;
+		private String error;
+	}
+}
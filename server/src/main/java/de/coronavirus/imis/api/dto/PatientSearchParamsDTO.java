@@ -30,6 +30,8 @@ public class PatientSearchParamsDTO {
 
 	private Long offsetPage;
 	private Long pageSize;
+	// Page token of the previous page for keyset pagination, offsetPage is ignored if set
+	private String after;
 
 	private String doctorId;
 	private String laboratoryId;
@@ -37,6 +39,10 @@ public class PatientSearchParamsDTO {
 
 	private EventType patientStatus;
 	private List<EventType> quarantineStatus;
+	// Patients with at least one of the given values each
+	private List<String> symptoms;
+	private List<String> riskAreas;
+	private List<String> preIllnesses;
 
 	public Long getPageSize() {
 		if (pageSize != null && pageSize > 0) {
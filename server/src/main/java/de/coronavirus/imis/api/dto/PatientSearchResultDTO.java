@@ -0,0 +1,20 @@
+package de.coronavirus.imis.api.dto;
+
+import de.coronavirus.imis.domain.Patient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchResultDTO {
+	private List<Patient> patients;
+	private long count;
+	// count is the estimate of the query planner
+	private boolean countEstimated;
+	// page token for PatientSearchParamsDTO.after, null on the last page
+	private String nextPageAfter;
+}
@@ -17,5 +17,8 @@ public class UpdateTestStatusDTO {
 	private String comment;
 	private String testId;
 	private LocalDate eventDate;
+	// Report uploaded to /api/blobs before
+	private String reportHash;
+	// Report sent inline, moved to the blob store by LabResultService.applyResult
 	private byte[] file;
 }
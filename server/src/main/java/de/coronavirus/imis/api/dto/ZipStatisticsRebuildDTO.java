@@ -0,0 +1,15 @@
+package de.coronavirus.imis.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ZipStatisticsRebuildDTO {
+	private int rowCount;
+	private List<String> mismatches;
+}
@@ -0,0 +1,11 @@
+package de.coronavirus.imis.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+	public BadRequestException(final String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,11 @@
+package de.coronavirus.imis.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.NOT_FOUND)
+public class BlobNotFoundException extends RuntimeException {
+	public BlobNotFoundException(final String message) {
+		super(message);
+	}
+}
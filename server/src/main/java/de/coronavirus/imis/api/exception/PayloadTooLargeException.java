@@ -0,0 +1,11 @@
+package de.coronavirus.imis.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.PAYLOAD_TOO_LARGE)
+public class PayloadTooLargeException extends RuntimeException {
+	public PayloadTooLargeException(final String message) {
+		super(message);
+	}
+}
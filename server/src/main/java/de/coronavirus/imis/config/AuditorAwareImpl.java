@@ -1,13 +1,18 @@
 package de.coronavirus.imis.config;
 
 import de.coronavirus.imis.config.domain.User;
+import de.coronavirus.imis.config.domain.UserRepository;
+import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.Optional;
 
+@RequiredArgsConstructor
 public class AuditorAwareImpl implements AuditorAware<User> {
+	private final UserRepository userRepository;
+
 	@Override
 	public Optional<User> getCurrentAuditor() {
 
@@ -17,9 +22,9 @@ public class AuditorAwareImpl implements AuditorAware<User> {
 				&& SecurityContextHolder.getContext().getAuthentication().isAuthenticated()
 				&& !"anonymousUser".equals(authentication.getPrincipal()))
 		{
-			var user = (User) authentication.getPrincipal();
-			Optional<User> opt = Optional.of(user);
-			return opt;
+			// the principal is a snapshot, the reference is resolved without reading the user
+			var principal = (UserPrincipal) authentication.getPrincipal();
+			return Optional.of(userRepository.getOne(principal.getId()));
 		}
 
 		return Optional.empty();
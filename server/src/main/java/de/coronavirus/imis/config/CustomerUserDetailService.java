@@ -1,21 +1,59 @@
 package de.coronavirus.imis.config;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import de.coronavirus.imis.config.domain.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the principal of authenticated requests. Principals are cached by username, so the token filter
+ * does not query the database on every request. Services that modify a user have to call
+ * {@link #evict(String)}, services that modify an institution {@link #evictInstitution(String)}. Changes
+ * made by other instances become visible once the entry expires.
+ */
 @Component
 @RequiredArgsConstructor
 public class CustomerUserDetailService implements UserDetailsService {
 	private final UserRepository userRepository;
+	@Value("${security.principal-cache.expire-length:300000}")
+	private long expireInMilliseconds;
+	@Value("${security.principal-cache.max-size:10000}")
+	private long maxSize;
+	private Cache<String, UserPrincipal> users;
+
+	@PostConstruct
+	protected void init() {
+		users = CacheBuilder.newBuilder()
+				.expireAfterWrite(expireInMilliseconds, TimeUnit.MILLISECONDS)
+				.maximumSize(maxSize)
+				.build();
+	}
 
 	@Override
-	public UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
-		return userRepository.findByUsername(username)
-				.orElseThrow(() -> new UsernameNotFoundException("Username: " + username + " not found"));
+	public UserPrincipal loadUserByUsername(final String username) throws UsernameNotFoundException {
+		var principal = users.getIfPresent(username);
+		if (principal == null) {
+			principal = userRepository.findByUsername(username)
+					.map(UserPrincipal::new)
+					.orElseThrow(() -> new UsernameNotFoundException("Username: " + username + " not found"));
+			users.put(username, principal);
+		}
+		return principal;
+	}
+
+	public void evict(final String username) {
+		users.invalidate(username);
+	}
+
+	public void evictInstitution(final String institutionId) {
+		users.asMap().values().removeIf(principal -> institutionId.equals(principal.getInstitutionId()));
 	}
 
 }
@@ -0,0 +1,81 @@
+package de.coronavirus.imis.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+/**
+ * Second-level cache of Hibernate, backed by Caffeine through JCache. Only reference data that
+ * rarely changes is cached: the institutions and the queries listing them. Changes made through
+ * Hibernate update the cached entities and invalidate the cached queries of the changed tables when
+ * their transaction commits. Changes made by other instances or directly in the database become
+ * visible once the entries expire.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+	public static final String INSTITUTION_REGION = "institution";
+	public static final String INSTITUTION_QUERY_REGION = "institution-queries";
+
+	@Bean(destroyMethod = "close")
+	public CacheManager hibernateCacheManager(@Value("${hibernate-cache.expire-length:3600000}") long expireInMilliseconds,
+											  @Value("${hibernate-cache.max-size:10000}") long maxSize) {
+		// A cache manager of its own per application context, the default one is shared by the class loader
+		final CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+		final CaffeineConfiguration<Object, Object> expiring = configuration();
+		expiring.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expireInMilliseconds)));
+		expiring.setMaximumSize(OptionalLong.of(maxSize));
+		cacheManager.createCache(INSTITUTION_REGION, expiring);
+		cacheManager.createCache(INSTITUTION_QUERY_REGION, expiring);
+		cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, expiring);
+		// Holds the last modification of each table, evicting it would serve stale query results
+		cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, configuration());
+		return cacheManager;
+	}
+
+	// Hibernate does not modify cached entries, so they are stored by reference instead of being copied
+	private static CaffeineConfiguration<Object, Object> configuration() {
+		final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setStoreByValue(false);
+		configuration.setStatisticsEnabled(true);
+		return configuration;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+			// Regions have to be created above, so each of them is bounded
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+		};
+	}
+
+	// Hits, misses, puts and removals per region
+	@Bean
+	public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+		return registry -> StreamSupport.stream(hibernateCacheManager.getCacheNames().spliterator(), false)
+				.forEach(name -> new JCacheMetrics(hibernateCacheManager.getCache(name), Tags.of("cacheManager", "hibernate"))
+						.bindTo(registry));
+	}
+}
@@ -31,9 +31,11 @@ public class JwtTokenFilter extends GenericFilterBean {
 			throws IOException, ServletException {
 
 		String token = jwtTokenProvider.resolveToken((HttpServletRequest) req);
-		if (token != null && jwtTokenProvider.validateToken(token)) {
-			Authentication auth = jwtTokenProvider.getAuthentication(token);
-			SecurityContextHolder.getContext().setAuthentication(auth);
+		if (token != null) {
+			jwtTokenProvider.verifyToken(token).ifPresent(verified -> {
+				Authentication auth = jwtTokenProvider.getAuthentication(verified);
+				SecurityContextHolder.getContext().setAuthentication(auth);
+			});
 		}
 
 		filterChain.doFilter(req, res);
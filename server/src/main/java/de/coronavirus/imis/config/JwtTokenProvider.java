@@ -1,13 +1,14 @@
 package de.coronavirus.imis.config;
 
-import java.util.Base64;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -15,11 +16,19 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import de.coronavirus.imis.config.domain.SigningKey;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolver;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,19 +39,33 @@ public class JwtTokenProvider {
 	private static final String BEARER = "Bearer ";
 	private static final String AUTHORIZATION = "Authorization";
 	private static final String ROLES = "roles";
+	private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
 	private final UserDetailsService userDetailsService;
-	private String secretKey;
+	private final SigningKeyService signingKeyService;
+	private final SigningKeyResolver signingKeyResolver = new SigningKeyResolverAdapter() {
+		// the signature of jjwt 0.9 takes the raw type
+		@SuppressWarnings("rawtypes")
+		@Override
+		public byte[] resolveSigningKeyBytes(JwsHeader header, Claims claims) {
+			// tokens without key id were signed by a single instance before the keys were shared
+			return Optional.ofNullable(header.getKeyId())
+					.flatMap(signingKeyService::findVerificationKey)
+					.map(SigningKeyService::decodeSecret)
+					.orElseThrow(() -> new SignatureException("unknown signing key " + header.getKeyId()));
+		}
+	};
 	@Value("${security.jwt.token.expire-length:86400000}")
 	private long validityInMilliseconds;
+	// digest of the token -> claims, the digest keeps the tokens themselves out of the heap
+	private Cache<String, VerifiedToken> verifiedTokens;
 
 
 	@PostConstruct
 	protected void init() {
-		//This is okay since it is a single so it will be created with the first request either
-		//we generate this on the server and secure it somewhere or we let it random but I DON'T feel comfortable having
-		//static secrets in the source code
-		var randomSecret = RandomStringUtils.randomAlphabetic(12);
-		secretKey = Base64.getEncoder().encodeToString(randomSecret.getBytes());
+		verifiedTokens = CacheBuilder.newBuilder()
+				.maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+				.expireAfterWrite(validityInMilliseconds, TimeUnit.MILLISECONDS)
+				.build();
 	}
 
 	public String createToken(String username, List<String> role) {
@@ -50,24 +73,22 @@ public class JwtTokenProvider {
 		claims.put(ROLES, role);
 		Date now = new Date();
 		Date validity = new Date(now.getTime() + validityInMilliseconds);
+		SigningKey key = signingKeyService.getSigningKey();
 		return Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, key.getId())
 				.setClaims(claims)
 				.setIssuedAt(now)
 				.setExpiration(validity)
-				.signWith(SignatureAlgorithm.HS256, secretKey)
+				.signWith(SignatureAlgorithm.HS256, SigningKeyService.decodeSecret(key))
 				.compact();
 	}
 
-	// TODO: MAYBE do not load from the db -> store roles in token since tokens are
-	public Authentication getAuthentication(String token) {
-		UserDetails userDetails = userDetailsService.loadUserByUsername(getUsername(token));
+	public Authentication getAuthentication(VerifiedToken token) {
+		// The user is cached by CustomerUserDetailService, so this does not query the db for every request
+		UserDetails userDetails = userDetailsService.loadUserByUsername(token.getUsername());
 		return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
 	}
 
-	public String getUsername(String token) {
-		return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody().getSubject();
-	}
-
 	public String resolveToken(HttpServletRequest req) {
 		String bearerToken = req.getHeader(AUTHORIZATION);
 		if (bearerToken != null && bearerToken.startsWith(BEARER)) {
@@ -76,16 +97,40 @@ public class JwtTokenProvider {
 		return null;
 	}
 
-	public boolean validateToken(String token) {
+	/**
+	 * Verifies signature and expiration of the token. Verified tokens are cached by their digest until
+	 * they expire, so a client sending the same token with every request is verified only once.
+	 *
+	 * @return claims of the token, empty if the token is invalid or expired
+	 */
+	public Optional<VerifiedToken> verifyToken(String token) {
+		final String digest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+		final long now = System.currentTimeMillis();
+		final VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+		if (cached != null) {
+			if (!cached.isExpired(now)) {
+				return Optional.of(cached);
+			}
+			verifiedTokens.invalidate(digest);
+			return Optional.empty();
+		}
 		try {
-			Jws<Claims> claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
-			if (claims.getBody().getExpiration().before(new Date())) {
-				return false;
+			final Claims claims = Jwts.parser().setSigningKeyResolver(signingKeyResolver).parseClaimsJws(token).getBody();
+			if (claims.getExpiration() == null) {
+				return Optional.empty();
+			}
+			@SuppressWarnings("unchecked")
+			final VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.get(ROLES, List.class),
+					claims.getExpiration());
+			if (verified.isExpired(now)) {
+				return Optional.empty();
 			}
-			return true;
+			verifiedTokens.put(digest, verified);
+			return Optional.of(verified);
 		} catch (JwtException | IllegalArgumentException e) {
-			log.error("error parsing tokens {}", token, e);
+			// Expired tokens are part of normal operation, the stack trace does not help
+			log.debug("rejected token: {}", e.getMessage());
 		}
-		return false;
+		return Optional.empty();
 	}
 }
@@ -8,6 +8,9 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import de.coronavirus.imis.config.domain.User;
+import de.coronavirus.imis.config.domain.UserRepository;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
@@ -20,8 +23,13 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 class PersistenceConfig {
 
 	@Bean
-	public AuditorAware<User> auditorAware() {
-		return new AuditorAwareImpl();
+	public AuditorAware<User> auditorAware(UserRepository userRepository) {
+		return new AuditorAwareImpl(userRepository);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer sqlFunctionCustomizer() {
+		return properties -> properties.put(EntityManagerFactoryBuilderImpl.METADATA_BUILDER_CONTRIBUTOR, new SqlFunctionContributor());
 	}
 
 	@Bean
@@ -0,0 +1,128 @@
+package de.coronavirus.imis.config;
+
+import de.coronavirus.imis.config.domain.SigningKey;
+import de.coronavirus.imis.config.domain.SigningKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Signing keys of the tokens, shared by all instances through the database so that a token issued by
+ * one instance is accepted by all others. The newest key signs new tokens and is replaced after the
+ * rotation interval. Replaced keys keep verifying until the last token they signed has expired.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SigningKeyService {
+	// HS256 wants a secret of at least 256 bits
+	private static final int SECRET_BYTES = 32;
+
+	private final SigningKeyRepository signingKeyRepository;
+	private final SecureRandom random = new SecureRandom();
+	@Value("${security.jwt.token.expire-length:86400000}")
+	private long validityInMilliseconds;
+	@Value("${security.jwt.key.rotation-interval:86400000}")
+	private long rotationIntervalInMilliseconds;
+	@Value("${security.jwt.key.reload-interval:1000}")
+	private long reloadIntervalInMilliseconds;
+	private final AtomicLong lastLoad = new AtomicLong();
+	// snapshot of the keys in the database, replaced as a whole
+	private volatile Map<String, SigningKey> keys = Map.of();
+
+	/**
+	 * Newest key that may still sign, a new key is created if there is none.
+	 */
+	public SigningKey getSigningKey() {
+		return findSigningKey()
+				.or(() -> {
+					refresh();
+					return findSigningKey();
+				})
+				.orElseGet(this::createKey);
+	}
+
+	/**
+	 * Key to verify a token with. Keys created by another instance since the last refresh are loaded
+	 * from the database, but at most once per reload interval, so tokens with made-up key ids cannot
+	 * cause a query each.
+	 *
+	 * @return key, empty if the key is unknown or expired
+	 */
+	public Optional<SigningKey> findVerificationKey(String id) {
+		SigningKey key = keys.get(id);
+		if (key == null && startReload()) {
+			load();
+			key = keys.get(id);
+		}
+		return Optional.ofNullable(key)
+				.filter(found -> found.getExpiresAt().isAfter(Instant.now()));
+	}
+
+	/**
+	 * Removes expired keys from the database and picks up keys created by other instances.
+	 */
+	@Scheduled(fixedDelayString = "${security.jwt.key.refresh-interval:60000}")
+	public void refresh() {
+		signingKeyRepository.deleteByExpiresAtBefore(Instant.now());
+		load();
+	}
+
+	private void load() {
+		lastLoad.set(System.currentTimeMillis());
+		keys = signingKeyRepository.findAll().stream()
+				.collect(Collectors.toUnmodifiableMap(SigningKey::getId, Function.identity()));
+	}
+
+	// only one of the threads missing a key within the interval loads the keys
+	private boolean startReload() {
+		final long last = lastLoad.get();
+		final long now = System.currentTimeMillis();
+		return now - last >= reloadIntervalInMilliseconds && lastLoad.compareAndSet(last, now);
+	}
+
+	public static byte[] decodeSecret(SigningKey key) {
+		return Base64.getDecoder().decode(key.getSecret());
+	}
+
+	private Optional<SigningKey> findSigningKey() {
+		final Instant signableAfter = Instant.now().minusMillis(rotationIntervalInMilliseconds);
+		return keys.values().stream()
+				.filter(key -> key.getCreatedAt().isAfter(signableAfter))
+				.max(Comparator.comparing(SigningKey::getCreatedAt));
+	}
+
+	private synchronized SigningKey createKey() {
+		// another thread may have created the key while this one was waiting
+		final Optional<SigningKey> existing = findSigningKey();
+		if (existing.isPresent()) {
+			return existing.get();
+		}
+		final byte[] secret = new byte[SECRET_BYTES];
+		random.nextBytes(secret);
+		final Instant now = Instant.now();
+		// signs until now + rotation interval, the last token signed then is valid for another validity period
+		final SigningKey key = signingKeyRepository.save(new SigningKey(UUID.randomUUID().toString(),
+				Base64.getEncoder().encodeToString(secret), now,
+				now.plusMillis(rotationIntervalInMilliseconds + validityInMilliseconds)));
+		log.info("created signing key {}", key.getId());
+		final Map<String, SigningKey> updated = new HashMap<>(keys);
+		updated.put(key.getId(), key);
+		keys = Map.copyOf(updated);
+		return key;
+	}
+}
@@ -1,5 +1,6 @@
 package de.coronavirus.imis.config;
 
+import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.OPTIONS;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.HttpMethod.PUT;
@@ -70,6 +71,10 @@ public class SpringSecurityConfig extends WebSecurityConfigurerAdapter {
 				.antMatchers(API_PREFIX + "/labtest/patient/*").hasAnyRole(DEPARTMENT_OF_HEALTH, DOCTORS_OFFICE, CLINIC, TEST_SITE)
 				.antMatchers(API_PREFIX + "/incidents/*").hasAnyRole(DEPARTMENT_OF_HEALTH, DOCTORS_OFFICE, CLINIC, TEST_SITE)
 				.mvcMatchers(PUT, API_PREFIX + "/labtest/*").hasAnyRole(DEPARTMENT_OF_HEALTH, LABORATORY)
+				// reports are uploaded by whoever may report a result and read by whoever may read lab tests
+				.mvcMatchers(POST, API_PREFIX + "/blobs").hasAnyRole(DEPARTMENT_OF_HEALTH, LABORATORY)
+				.antMatchers(GET, API_PREFIX + "/blobs/*").hasAnyRole(DEPARTMENT_OF_HEALTH, DOCTORS_OFFICE, CLINIC, TEST_SITE)
+				.antMatchers(API_PREFIX + "/blobs/**").denyAll()
 				.antMatchers(API_PREFIX + "/stats").authenticated()
 				.antMatchers(API_PREFIX + "/auth/register").hasAuthority(UserRole.USER_ROLE_ADMIN.name())
 				.antMatchers(POST, API_PREFIX + "/institutions").permitAll() // Create Institution
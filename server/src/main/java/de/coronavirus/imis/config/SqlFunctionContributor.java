@@ -0,0 +1,23 @@
+package de.coronavirus.imis.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * SQL functions that are not part of HQL.
+ */
+public class SqlFunctionContributor implements MetadataBuilderContributor {
+
+	/**
+	 * Total number of rows of a query before limit and offset are applied, e.g.
+	 * "select pat, count_over() from Patient pat".
+	 */
+	public static final String COUNT_OVER = "count_over";
+
+	@Override
+	public void contribute(MetadataBuilder metadataBuilder) {
+		metadataBuilder.applySqlFunction(COUNT_OVER, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+	}
+}
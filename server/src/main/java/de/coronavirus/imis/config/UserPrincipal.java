@@ -0,0 +1,50 @@
+package de.coronavirus.imis.config;
+
+import de.coronavirus.imis.config.domain.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+/**
+ * Principal of authenticated requests, a snapshot of the user taken when it was loaded. It is cached
+ * by {@link CustomerUserDetailService} and shared by concurrent requests, so it is immutable and
+ * holds neither the user entity nor its institution.
+ */
+@Getter
+public final class UserPrincipal implements UserDetails {
+	private final Long id;
+	private final String username;
+	private final String password;
+	private final List<GrantedAuthority> authorities;
+	private final String institutionId;
+
+	UserPrincipal(User user) {
+		this.id = user.getId();
+		this.username = user.getUsername();
+		this.password = user.getPassword();
+		this.authorities = List.copyOf(user.getAuthorities());
+		this.institutionId = user.getInstitutionId();
+	}
+
+	@Override
+	public boolean isAccountNonExpired() {
+		return true;
+	}
+
+	@Override
+	public boolean isAccountNonLocked() {
+		return true;
+	}
+
+	@Override
+	public boolean isCredentialsNonExpired() {
+		return true;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+}
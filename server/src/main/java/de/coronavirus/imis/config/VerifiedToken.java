@@ -0,0 +1,26 @@
+package de.coronavirus.imis.config;
+
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature has been verified, see {@link JwtTokenProvider#verifyToken(String)}.
+ */
+@Getter
+public final class VerifiedToken {
+	private final String username;
+	private final List<String> roles;
+	private final long expiresAt;
+
+	VerifiedToken(String username, List<String> roles, Date expiration) {
+		this.username = username;
+		this.roles = roles != null ? List.copyOf(roles) : List.of();
+		this.expiresAt = expiration.getTime();
+	}
+
+	public boolean isExpired(long now) {
+		return expiresAt <= now;
+	}
+}
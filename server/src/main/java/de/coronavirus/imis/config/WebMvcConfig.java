@@ -1,5 +1,6 @@
 package de.coronavirus.imis.config;
 
+import de.coronavirus.imis.api.PatientController;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
@@ -16,6 +17,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
 						"http://imis-prototyp.de",
 						"http://localhost:8080")
 				.allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+				.exposedHeaders(PatientController.NEXT_PAGE_HEADER)
 				.allowCredentials(true);
 	}
 
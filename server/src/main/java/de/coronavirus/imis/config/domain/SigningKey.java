@@ -0,0 +1,24 @@
+package de.coronavirus.imis.config.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Secret for signing tokens, shared by all instances through the database. A key signs new tokens
+ * until it is replaced by a newer key and verifies tokens until {@link #expiresAt}.
+ */
+@Getter
+@AllArgsConstructor
+public class SigningKey {
+	// "kid" header of the tokens signed with the key
+	private final String id;
+
+	// Base64 encoded HS256 secret
+	private final String secret;
+
+	private final Instant createdAt;
+
+	private final Instant expiresAt;
+}
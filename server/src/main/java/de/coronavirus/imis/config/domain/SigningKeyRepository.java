@@ -0,0 +1,46 @@
+package de.coronavirus.imis.config.domain;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Signing keys in the table signing_key. The table is not known to Hibernate, so it survives the
+ * recreation of the schema by another instance (spring.jpa.hibernate.ddl-auto) and tokens signed
+ * before stay valid.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SigningKeyRepository {
+
+	private static final RowMapper<SigningKey> ROW_MAPPER = (row, number) -> new SigningKey(row.getString("id"),
+			row.getString("secret"), row.getTimestamp("created_at").toInstant(), row.getTimestamp("expires_at").toInstant());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@PostConstruct
+	void init() {
+		jdbcTemplate.execute("create table if not exists signing_key (id varchar(255) primary key, "
+				+ "secret varchar(255) not null, created_at timestamp not null, expires_at timestamp not null)");
+	}
+
+	public List<SigningKey> findAll() {
+		return jdbcTemplate.query("select * from signing_key", ROW_MAPPER);
+	}
+
+	public SigningKey save(SigningKey key) {
+		jdbcTemplate.update("insert into signing_key (id, secret, created_at, expires_at) values (?, ?, ?, ?)",
+				key.getId(), key.getSecret(), Timestamp.from(key.getCreatedAt()), Timestamp.from(key.getExpiresAt()));
+		return key;
+	}
+
+	public void deleteByExpiresAtBefore(Instant instant) {
+		jdbcTemplate.update("delete from signing_key where expires_at < ?", Timestamp.from(instant));
+	}
+}
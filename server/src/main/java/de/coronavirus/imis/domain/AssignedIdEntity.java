@@ -0,0 +1,40 @@
+package de.coronavirus.imis.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.MappedSuperclass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+
+/**
+ * Entity whose id is assigned by the application instead of the database. From the id alone Spring Data
+ * cannot tell whether such an entity exists yet, so it would merge it and read it before every insert.
+ * Entities created with a new id are marked as new instead and saving them only inserts them. Loaded and
+ * persisted entities, as well as entities received from clients, are not new.
+ *
+ * @param <ID> type of the id
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity<ID> implements Persistable<ID> {
+
+	@Transient
+	private boolean newEntity;
+
+	protected void markNew() {
+		newEntity = true;
+	}
+
+	@JsonIgnore
+	@Override
+	public boolean isNew() {
+		return newEntity;
+	}
+
+	@PostPersist
+	@PostLoad
+	void markPersisted() {
+		newEntity = false;
+	}
+}
@@ -25,12 +25,16 @@ import static org.hibernate.envers.RelationTargetAuditMode.NOT_AUDITED;
 @Accessors(chain = true)
 @EntityListeners(AuditingEntityListener.class)
 @Audited
-@MappedSuperclass
-public abstract class Incident {
+// A table per incident type, queries on Incident read all of them in one statement (union all)
+@Entity
+@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+public abstract class Incident extends AssignedIdEntity<String> {
 
 	protected Incident (IncidentType type)
 	{
 		id = type.toString() + "_" + UUID.randomUUID().toString().replace("-", "");
+		// Hibernate creates loaded incidents this way too, they are marked as persisted after loading
+		markNew();
 	}
 
 	@Id
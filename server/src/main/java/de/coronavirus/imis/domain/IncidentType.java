@@ -8,9 +8,9 @@ public enum IncidentType {
 	quarantine(QuarantineIncident.class),
 	administrative(AdministrativeIncident.class);
 
-	public final Class IMPLEMENTATION;
+	public final Class<? extends Incident> IMPLEMENTATION;
 
-	IncidentType(Class implementation) {
+	IncidentType(Class<? extends Incident> implementation) {
 		this.IMPLEMENTATION = implementation;
 	}
 
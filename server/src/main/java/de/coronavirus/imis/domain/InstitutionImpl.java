@@ -3,9 +3,12 @@ package de.coronavirus.imis.domain;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import de.coronavirus.imis.config.HibernateCacheConfig;
 import de.coronavirus.imis.config.domain.User;
 import lombok.Data;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
@@ -15,6 +18,8 @@ import java.util.List;
 @Entity(name = "institution")
 @Getter
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.INSTITUTION_REGION)
 public abstract class InstitutionImpl implements Institution {
 	@Id
 	@GeneratedValue(generator = "uuid2")
@@ -12,10 +12,14 @@ import org.hibernate.annotations.GenericGenerator;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 import java.time.OffsetDateTime;
 
 @Entity
+// Lab results are reported by test id and laboratory, see LabResultService
+@Table(indexes = @Index(name = "lab_test_test_id_laboratory_idx", columnList = "testId, laboratory_id"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -42,7 +46,8 @@ public class LabTest {
 
 	private String comment;
 
-	private byte[] report;
+	// SHA-256 of the report in the BlobStore
+	private String reportHash;
 
 	private OffsetDateTime lastUpdate;
 
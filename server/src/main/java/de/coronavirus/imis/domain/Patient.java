@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import io.swagger.annotations.ApiModel;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.AllArgsConstructor;
@@ -12,6 +13,7 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -19,12 +21,27 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import de.coronavirus.imis.domain.ExposureContact;
 import de.coronavirus.imis.repositories.ExposureContactRepository;
 
 
 @Entity
+@Table(indexes = {
+		// Sort keys of the keyset pagination of the patient search, see PatientCursor
+		@Index(name = "patient_first_name_id_idx", columnList = "firstName, id"),
+		@Index(name = "patient_last_name_id_idx", columnList = "lastName, id"),
+		@Index(name = "patient_gender_id_idx", columnList = "gender, id"),
+		@Index(name = "patient_zip_id_idx", columnList = "zip, id"),
+		@Index(name = "patient_city_id_idx", columnList = "city, id"),
+		@Index(name = "patient_date_of_birth_id_idx", columnList = "dateOfBirth, id"),
+		@Index(name = "patient_patient_status_id_idx", columnList = "patientStatus, id"),
+		@Index(name = "patient_creation_timestamp_id_idx", columnList = "creationTimestamp, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,7 +49,14 @@ import de.coronavirus.imis.repositories.ExposureContactRepository;
 @JsonIdentityInfo(
 		generator = ObjectIdGenerators.PropertyGenerator.class,
 		property = "id")
-public class Patient {
+public class Patient extends AssignedIdEntity<String> {
+	/**
+	 * Patients whose symptoms, risk areas and pre-illnesses are loaded together, so a page of the
+	 * search needs one query per attribute. Each of them is stored in its own table with one row per
+	 * value, the primary key serves the loading and the second index the filters of the search.
+	 */
+	private static final int PAGE_BATCH_SIZE = 50;
+
 	@OneToMany(mappedBy = "patient")
 	@OrderBy("eventTimestamp asc")
 	List<PatientEvent> events;
@@ -67,8 +91,12 @@ public class Patient {
 	private EventType patientStatus;
 	private Boolean fluImmunization;
 	private String speedOfSymptomsOutbreak;
-	@Convert(converter = StringListConverter.class)
-	private List<String> symptoms;
+	@ElementCollection
+	@CollectionTable(name = "patient_symptom", joinColumns = @JoinColumn(name = "patient_id"),
+			indexes = @Index(name = "patient_symptom_symptom_idx", columnList = "symptom, patient_id"))
+	@Column(name = "symptom", nullable = false)
+	@BatchSize(size = PAGE_BATCH_SIZE)
+	private Set<String> symptoms;
 	private Boolean coronaContacts;
 
 	@JsonIgnore
@@ -78,11 +106,19 @@ public class Patient {
 	@OneToMany(mappedBy = "source")
 	private List<ExposureContact> exposureContacts;
 
-	@Convert(converter = StringListConverter.class)
-	private List<String> riskAreas;
+	@ElementCollection
+	@CollectionTable(name = "patient_risk_area", joinColumns = @JoinColumn(name = "patient_id"),
+			indexes = @Index(name = "patient_risk_area_risk_area_idx", columnList = "riskArea, patient_id"))
+	@Column(name = "riskArea", nullable = false)
+	@BatchSize(size = PAGE_BATCH_SIZE)
+	private Set<String> riskAreas;
 	private Boolean weakenedImmuneSystem;
-	@Convert(converter = StringListConverter.class)
-	private List<String> preIllnesses;
+	@ElementCollection
+	@CollectionTable(name = "patient_pre_illness", joinColumns = @JoinColumn(name = "patient_id"),
+			indexes = @Index(name = "patient_pre_illness_pre_illness_idx", columnList = "preIllness, patient_id"))
+	@Column(name = "preIllness", nullable = false)
+	@BatchSize(size = PAGE_BATCH_SIZE)
+	private Set<String> preIllnesses;
 	@Enumerated(EnumType.STRING)
 	private RiskOccupation riskOccupation;
 	private String comment;
@@ -95,6 +131,32 @@ public class Patient {
 
 	private LocalDate quarantineUntil;
 
+	/**
+	 * Lower case concatenation of the attributes covered by the simple search, separated by blanks.
+	 * Search terms never contain blanks, so a term cannot match across two attributes. On PostgreSQL
+	 * the column is backed by a trigram index, see data-postgres.sql.
+	 */
+	@JsonIgnore
+	@Setter(AccessLevel.NONE)
+	@Column(length = 2048)
+	private String searchText;
+
+	// New patients get their id from the PatientIdAllocator, patients with any other id are merged.
+	// Returns nothing, so MapStruct does not take it for a fluent setter of an "assignNewId" property.
+	public void assignNewId(String id) {
+		this.id = id;
+		markNew();
+	}
+
+	@PrePersist
+	@PreUpdate
+	void updateSearchText() {
+		searchText = Stream.of(firstName, lastName, id, email, phoneNumber, city)
+				.filter(Objects::nonNull)
+				.map(String::toLowerCase)
+				.collect(Collectors.joining(" "));
+	}
+
 	@ApiModel("PatientIdentity")
 	@Getter
 	@Setter
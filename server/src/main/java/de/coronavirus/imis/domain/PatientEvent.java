@@ -12,6 +12,12 @@ import javax.persistence.*;
 import java.sql.Timestamp;
 
 @Entity
+@Table(indexes = {
+		// Latest event per patient, see PatientEventRepository.findLatestByPatientIds
+		@Index(name = "patient_event_patient_timestamp_idx", columnList = "patient_id, eventTimestamp, id"),
+		// Events of a lab test, see LabResultService
+		@Index(name = "patient_event_lab_test_idx", columnList = "lab_test_id")
+})
 @Getter
 @Setter
 @Accessors(chain = true)
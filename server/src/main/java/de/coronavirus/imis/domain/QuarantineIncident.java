@@ -6,10 +6,14 @@ import lombok.experimental.Accessors;
 import org.hibernate.envers.Audited;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.time.LocalDate;
 
 
 @Entity
+// Quarantine status filter of the patient search, see PatientQueryService
+@Table(indexes = @Index(name = "quarantine_incident_patient_idx", columnList = "patient_id, eventType"))
 @Getter
 @Setter
 @Accessors(chain = true)
@@ -9,11 +9,15 @@ import org.hibernate.envers.Audited;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 import static org.hibernate.envers.RelationTargetAuditMode.NOT_AUDITED;
 
 @Entity
+// Lab results are reported by test id and laboratory, see LabResultService
+@Table(indexes = @Index(name = "test_incident_test_id_laboratory_idx", columnList = "testId, laboratory_id"))
 @Getter
 @Setter
 @Accessors(chain = true)
@@ -38,7 +42,8 @@ public class TestIncident extends Incident {
 	@Enumerated(EnumType.STRING)
 	private TestMaterial testMaterial;
 
-	private byte[] report;
+	// SHA-256 of the report in the BlobStore
+	private String reportHash;
 
 	public TestIncident() {
 		super(IncidentType.test);
@@ -0,0 +1,58 @@
+package de.coronavirus.imis.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import java.io.Serializable;
+
+/**
+ * Number of patients per zip whose latest {@link PatientEvent} has the given event type.
+ * Maintained incrementally whenever an event is added, see {@link de.coronavirus.imis.services.ZipStatisticService}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Accessors(chain = true)
+@IdClass(ZipStatistic.Key.class)
+public class ZipStatistic extends AssignedIdEntity<ZipStatistic.Key> {
+
+	@Id
+	private String zip;
+
+	@Id
+	@Enumerated(EnumType.STRING)
+	private EventType eventType;
+
+	private long patientCount;
+
+	// A bucket not stored yet
+	public ZipStatistic(String zip, EventType eventType, long patientCount) {
+		this.zip = zip;
+		this.eventType = eventType;
+		this.patientCount = patientCount;
+		markNew();
+	}
+
+	@Override
+	public Key getId() {
+		return new Key(zip, eventType);
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Key implements Serializable {
+		private String zip;
+		private EventType eventType;
+	}
+}
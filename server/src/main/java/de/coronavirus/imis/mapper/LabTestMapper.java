@@ -22,6 +22,7 @@ public abstract class LabTestMapper {
 	@Mapping(target = "testStatus", constant = "TEST_SUBMITTED")
 	@Mapping(target = "lastUpdate", expression = "java( OffsetDateTime.now() )")
 	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "reportHash", ignore = true)
 	public abstract LabTest toLabTest(CreateLabTestDTO dto);
 
 	protected Laboratory labById(String id) {
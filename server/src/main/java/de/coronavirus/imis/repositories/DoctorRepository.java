@@ -1,13 +1,22 @@
 package de.coronavirus.imis.repositories;
 
+import de.coronavirus.imis.config.HibernateCacheConfig;
 import de.coronavirus.imis.domain.Doctor;
 import de.coronavirus.imis.domain.Laboratory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 public interface DoctorRepository extends JpaRepository<Doctor, String> {
 
+	@Override
+	@QueryHints({
+			@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheRegion", value = HibernateCacheConfig.INSTITUTION_QUERY_REGION)})
+	List<Doctor> findAll();
+
 	List<Laboratory> findByIdContaining(String id);
 
 }
@@ -0,0 +1,32 @@
+package de.coronavirus.imis.repositories;
+
+import de.coronavirus.imis.domain.Incident;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Incidents of all types. Each query reads the tables of all incident types in one statement.
+ */
+@Repository
+public interface IncidentRepository extends JpaRepository<Incident, String> {
+
+	List<Incident> findByPatientId(String patientId);
+
+	List<Incident> findByPatientIdIn(Collection<String> patientIds);
+
+	@Query("select i from Incident i where i.patient.id = :patientId and type(i) in :types")
+	Page<Incident> findByPatientIdAndTypeIn(@Param("patientId") String patientId,
+											@Param("types") Collection<Class<? extends Incident>> types,
+											Pageable pageable);
+
+	@Query("select i from Incident i where type(i) in :types")
+	Page<Incident> findByTypeIn(@Param("types") Collection<Class<? extends Incident>> types, Pageable pageable);
+
+}
@@ -1,20 +1,21 @@
 package de.coronavirus.imis.repositories;
 
+import de.coronavirus.imis.config.HibernateCacheConfig;
 import de.coronavirus.imis.domain.Laboratory;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 @Repository
 public interface LaboratoryRepository extends JpaRepository<Laboratory, String> {
 
-	@Query("select lab from Laboratory lab where " +
-			"lower(lab.id) like lower(concat('%', :id, '%')) or " +
-			"lower(lab.name) like lower(concat('%', :id, '%')) or " +
-			"lower(lab.city) like lower(concat('%', :id, '%'))")
-	List<Laboratory> queryLaboratory(@Param("id") String id);
+	@Override
+	@QueryHints({
+			@QueryHint(name = "org.hibernate.cacheable", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheRegion", value = HibernateCacheConfig.INSTITUTION_QUERY_REGION)})
+	List<Laboratory> findAll();
 
 }
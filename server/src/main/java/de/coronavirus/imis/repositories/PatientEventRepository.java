@@ -4,8 +4,10 @@ import de.coronavirus.imis.domain.LabTest;
 import de.coronavirus.imis.domain.Patient;
 import de.coronavirus.imis.domain.PatientEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,8 +15,37 @@ public interface PatientEventRepository extends JpaRepository<PatientEvent, Stri
 
 	List<PatientEvent> findAllByPatient(Patient patient);
 
-	List<PatientEvent> findPatientEventByLabTest(LabTest labTest);
+	/**
+	 * Events of a lab test in the order they happened, with their patient and doctor.
+	 */
+	@Query("select pe from PatientEvent pe " +
+			"join fetch pe.patient " +
+			"left join fetch pe.responsibleDoctor " +
+			"where pe.labTest = ?1 " +
+			"order by pe.eventTimestamp")
+	List<PatientEvent> findWithPatientByLabTest(LabTest labTest);
 
-	PatientEvent findFirstByPatientOrderByEventTimestampDesc(Patient patient);
+	/**
+	 * Latest event of a patient. Of events with the same timestamp the one with the greatest id is the
+	 * latest, as in {@link ZipStatisticRepository#computeFromPatientEvents()}.
+	 */
+	PatientEvent findFirstByPatientOrderByEventTimestampDescIdDesc(Patient patient);
+
+	/**
+	 * Loads the latest event of every given patient in a single statement. The eager associations of
+	 * the event are fetched in the same statement, so no follow-up selects are issued per row.
+	 *
+	 * @param patientIds ids of the patients
+	 * @return latest events, more than one per patient if several share the latest timestamp
+	 */
+	@Query("select pe from PatientEvent pe " +
+			"join fetch pe.patient pat " +
+			"left join fetch pe.labTest lt " +
+			"left join fetch lt.laboratory " +
+			"left join fetch pe.responsibleDoctor " +
+			"where pat.id in ?1 " +
+			"and pe.eventTimestamp = (" +
+			"select max(latest.eventTimestamp) from PatientEvent latest where latest.patient = pat)")
+	List<PatientEvent> findLatestByPatientIds(Collection<String> patientIds);
 
 }
@@ -8,12 +8,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, String>, JpaSpecificationExecutor<Patient> {
 	@Query("select pat from Patient pat where pat.zip between ?1 and ?2 ")
 	List<Patient> findAllByZipBetween(String lower, String upperBounds);
 
+	@Query("select pat.zip from Patient pat where pat.id = ?1")
+	Optional<String> findZipById(String id);
+
 	@Query("select distinct pat from Patient pat " +
 			"left join PatientEvent pe " +
 			"on pe.patient = pat.id " +
@@ -6,11 +6,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TestIncidentRepository extends JpaRepository<TestIncident, String> {
 
-	List<TestIncident> findByTestId(String testId);
+	Optional<TestIncident> findFirstByTestIdAndLaboratoryId(String testId, String laboratoryId);
 
 	List<TestIncident> findByPatientId(String patientId);
 
@@ -0,0 +1,33 @@
+package de.coronavirus.imis.repositories;
+
+import de.coronavirus.imis.domain.ZipStatistic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ZipStatisticRepository extends JpaRepository<ZipStatistic, ZipStatistic.Key> {
+
+	@Query("select stat from ZipStatistic stat where stat.zip between ?1 and ?2 and stat.patientCount > 0")
+	List<ZipStatistic> findAllByZipBetween(String lower, String upperBounds);
+
+	/**
+	 * Counts of the buckets with patients, as rows of zip, event type and patient count.
+	 */
+	@Query("select stat.zip, stat.eventType, stat.patientCount from ZipStatistic stat where stat.patientCount <> 0")
+	List<Object[]> findAllCounts();
+
+	/**
+	 * Computes the statistic from scratch. Returns rows of zip, event type and patient count.
+	 * Each patient is counted for exactly one latest event, the greatest id breaks ties of the timestamp.
+	 */
+	@Query("select pat.zip, pe.eventType, count(pat.id) from PatientEvent pe " +
+			"join pe.patient pat " +
+			"where pat.zip is not null " +
+			"and not exists (select later.id from PatientEvent later where later.patient = pat " +
+			"and (later.eventTimestamp, later.id) > (pe.eventTimestamp, pe.id)) " +
+			"group by pat.zip, pe.eventType")
+	List<Object[]> computeFromPatientEvents();
+}
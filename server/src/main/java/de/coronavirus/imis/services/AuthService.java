@@ -5,7 +5,9 @@ import de.coronavirus.imis.api.dto.ChangePasswordDTO;
 import de.coronavirus.imis.api.dto.CreateInstitutionDTO;
 import de.coronavirus.imis.api.dto.RegisterUserRequest;
 import de.coronavirus.imis.api.exception.ForbiddenException;
+import de.coronavirus.imis.config.CustomerUserDetailService;
 import de.coronavirus.imis.config.JwtTokenProvider;
+import de.coronavirus.imis.config.UserPrincipal;
 import de.coronavirus.imis.config.domain.User;
 import de.coronavirus.imis.config.domain.UserAlreadyExistsException;
 import de.coronavirus.imis.config.domain.UserRepository;
@@ -18,7 +20,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -29,9 +30,10 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AuthService {
 	private final JwtTokenProvider jwtProvider;
-	private final PasswordEncoder encoder;
+	private final PasswordHashService passwordHashService;
 	private final UserRepository userRepository;
 	private final InstitutionService institutionService;
+	private final CustomerUserDetailService userDetailService;
 
 	private final UserMapper userMapper;
 
@@ -42,14 +44,12 @@ public class AuthService {
 					.map(GrantedAuthority::getAuthority).collect(Collectors.toList());
 			return Optional.of(jwtProvider.createToken(maybeUser.get().getUsername(), role));
 		}
-		log.info("Did not find user for username {}", dto.getUsername());
-		maybeUser.ifPresent(user -> log.info("check password for username {} returned {}",
-				dto.getUsername(), checkPassword(dto.getPassword(), user.getPassword())));
+		log.info("login failed for username {}, user exists: {}", dto.getUsername(), maybeUser.isPresent());
 		return Optional.empty();
 	}
 
 	private boolean checkPassword(String toCheck, String passwordFromDB) {
-		return encoder.matches(toCheck, passwordFromDB);
+		return passwordHashService.matches(toCheck, passwordFromDB);
 	}
 
 	@SneakyThrows
@@ -82,18 +82,19 @@ public class AuthService {
 	}
 
 	public void changePassword(ChangePasswordDTO changePasswordDTO) {
-		final User user = getCurrentUser();
+		final User user = getUserByUsername(getCurrentUser().getUsername());
 		if (!this.checkPassword(changePasswordDTO.getOldPassword(), user.getPassword())) {
 			throw new ForbiddenException("Passwort inkorrekt");
 		}
-		var encodedPw = encoder.encode(changePasswordDTO.getNewPassword());
+		var encodedPw = passwordHashService.encode(changePasswordDTO.getNewPassword());
 		final var updatedUser = user.toBuilder().password(encodedPw).build();
 		userRepository.save(updatedUser);
+		userDetailService.evict(user.getUsername());
 	}
 
-	public User getCurrentUser() {
+	public UserPrincipal getCurrentUser() {
 		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		return (User) authentication.getPrincipal();
+		return (UserPrincipal) authentication.getPrincipal();
 	}
 
 	public User getUserByUsername(String username) {
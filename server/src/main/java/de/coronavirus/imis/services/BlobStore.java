@@ -0,0 +1,40 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stores binary content, e.g. lab reports, under the SHA-256 hash of the content. Entities only
+ * keep the hash, the same content is stored once no matter how often it is referenced.
+ */
+public interface BlobStore {
+
+	Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+	/**
+	 * Reads the content to its end and stores it, unless content with the same hash exists.
+	 *
+	 * @return hex encoded SHA-256 hash of the content
+	 */
+	String put(InputStream content) throws IOException;
+
+	/**
+	 * @return the content stored under the hash, the caller has to close the stream
+	 */
+	Optional<InputStream> get(String hash) throws IOException;
+
+	/**
+	 * @return whether content is stored under the hash
+	 */
+	boolean exists(String hash);
+
+	static void checkHash(String hash) {
+		if (hash == null || !HASH.matcher(hash).matches()) {
+			throw new BadRequestException("Invalid blob hash " + hash);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package de.coronavirus.imis.services;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Blob store in a Google Cloud Storage bucket, shared by all instances. Content is streamed to a
+ * temporary object while it is hashed and then copied to an object named by the hash, unless that
+ * exists already.
+ */
+@Service
+@ConditionalOnProperty(name = "imis.blob-store.type", havingValue = "gcs")
+@RequiredArgsConstructor
+public class GcsBlobStore implements BlobStore {
+	private final Storage storage;
+	@Value("${imis.blob-store.gcs.bucket}")
+	private String bucket;
+
+	@Override
+	public String put(InputStream content) throws IOException {
+		final BlobId upload = BlobId.of(bucket, "uploads/" + UUID.randomUUID());
+		try {
+			final HashingInputStream hashing = new HashingInputStream(Hashing.sha256(), content);
+			final BlobInfo uploadInfo = BlobInfo.newBuilder(upload)
+					.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+					.build();
+			try (OutputStream out = Channels.newOutputStream(storage.writer(uploadInfo))) {
+				hashing.transferTo(out);
+			}
+			final String hash = hashing.hash().toString();
+			final BlobId target = BlobId.of(bucket, hash);
+			if (storage.get(target) == null) {
+				storage.copy(Storage.CopyRequest.of(upload, target)).getResult();
+			}
+			return hash;
+		} finally {
+			storage.delete(upload);
+		}
+	}
+
+	@Override
+	public Optional<InputStream> get(String hash) {
+		BlobStore.checkHash(hash);
+		final Blob blob = storage.get(BlobId.of(bucket, hash));
+		return blob == null ? Optional.empty() : Optional.of(Channels.newInputStream(blob.reader()));
+	}
+
+	@Override
+	public boolean exists(String hash) {
+		BlobStore.checkHash(hash);
+		return storage.get(BlobId.of(bucket, hash)) != null;
+	}
+}
@@ -0,0 +1,64 @@
+package de.coronavirus.imis.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.coronavirus.imis.api.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position after the last entry of a page of the incident timeline, handed to clients as an opaque
+ * token. The timeline is ordered by version timestamp, revision and incident id, all descending.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentCursor {
+
+	static final Comparator<IncidentCursor> TIMELINE_ORDER = Comparator
+			.comparing(IncidentCursor::getVersionTimestamp)
+			.thenComparingInt(IncidentCursor::getRevision)
+			.thenComparing(IncidentCursor::getId)
+			.reversed();
+
+	private static final ObjectMapper mapper = JsonMapper.builder()
+			.addModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	private LocalDateTime versionTimestamp;
+	private int revision;
+	private String id;
+
+	/**
+	 * Decodes a token created by {@link #encode()}.
+	 */
+	public static IncidentCursor decode(String token) {
+		final IncidentCursor decoded;
+		try {
+			decoded = mapper.readValue(Base64.getUrlDecoder().decode(token), IncidentCursor.class);
+		} catch (IOException | IllegalArgumentException e) {
+			throw new BadRequestException("Invalid page token");
+		}
+		if (decoded.getVersionTimestamp() == null || decoded.getId() == null) {
+			throw new BadRequestException("Invalid page token");
+		}
+		return decoded;
+	}
+
+	public String encode() {
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(mapper.writeValueAsBytes(this));
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot encode page token", e);
+		}
+	}
+}
@@ -1,22 +1,50 @@
 package de.coronavirus.imis.services;
 
 import de.coronavirus.imis.api.dto.CreateLabTestDTO;
+import de.coronavirus.imis.api.dto.IncidentTimelineDTO;
 import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
-import de.coronavirus.imis.api.dto.UpdateTestStatusDTO;
+import de.coronavirus.imis.api.exception.BadRequestException;
 import de.coronavirus.imis.domain.*;
 import de.coronavirus.imis.mapper.PatientMapper;
 import de.coronavirus.imis.repositories.*;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.hibernate.envers.AuditReader;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.DefaultRevisionEntity;
+import org.hibernate.envers.exception.RevisionDoesNotExistException;
 import org.hibernate.envers.query.AuditEntity;
+import org.hibernate.envers.query.AuditQuery;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /*
 TODO
@@ -34,9 +62,33 @@ public class IncidentService {
 	private final PatientMapper patientMapper;
 	private final QuarantineIncidentRepository quarantineIncidentRepo;
 	private final AdministrativeIncidentRepository adminIncidentRepo;
+	private final IncidentRepository incidentRepo;
 	private final DoctorRepository doctorRepo;
-	private final AuditReader auditReader;
 	private final ApplicationContext ctx;
+	@PersistenceContext
+	private final EntityManager entityManager;
+	private final EntityManagerFactory entityManagerFactory;
+	// Threads for the queries of the incident types, each query uses an entity manager of its own
+	@Value("${incidents.query.threads:4}")
+	private int queryThreads;
+	@Value("${incidents.query.queue-capacity:100}")
+	private int queryQueueCapacity;
+	private ThreadPoolExecutor queryExecutor;
+
+	@PostConstruct
+	protected void init() {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		// A full queue runs the query on the request thread instead of rejecting it
+		queryExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queryQueueCapacity),
+				runnable -> new Thread(runnable, "incident-query-" + threadNumber.incrementAndGet()),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	@PreDestroy
+	protected void shutdown() {
+		queryExecutor.shutdown();
+	}
 
 	// Reading
 
@@ -55,13 +107,12 @@ public class IncidentService {
 		}
 	}
 
-	@Transactional
+	/**
+	 * Revisions of an incident or of all incidents of a patient. The audit tables of the incident
+	 * types are queried concurrently, outside of the transaction of the caller.
+	 */
 	public List<Incident> getLog(String id, boolean byPatient) {
-		List<Incident> result = new ArrayList<Incident>();
-
-		result.addAll(getLog(TestIncident.class, id, byPatient));
-		result.addAll(getLog(QuarantineIncident.class, id, byPatient));
-		result.addAll(getLog(AdministrativeIncident.class, id, byPatient));
+		List<Incident> result = queryAllTypes((type, em) -> getLog(AuditReaderFactory.get(em), type.IMPLEMENTATION, id, byPatient));
 
 		result.sort(
 				(Incident i1, Incident i2) -> i1.getVersionTimestamp().compareTo(i2.getVersionTimestamp())
@@ -72,6 +123,15 @@ public class IncidentService {
 
 	@Transactional
 	public <T extends Incident> List<T> getLog(Class<T> T, String id, boolean byPatient) {
+		return getLog(auditReader(), T, id, byPatient);
+	}
+
+	@Transactional
+	public List<Incident> getLog(IncidentType type, String id, boolean byPatient) {
+		return Collections.unmodifiableList(getLog(auditReader(), type.IMPLEMENTATION, id, byPatient));
+	}
+
+	private static <T extends Incident> List<T> getLog(AuditReader auditReader, Class<T> T, String id, boolean byPatient) {
 		var query = auditReader.createQuery().forRevisionsOfEntity(T, true, false);
 		if (byPatient) {
 			query.add(AuditEntity.relatedId("patient").eq(id));
@@ -81,47 +141,180 @@ public class IncidentService {
 		return query.getResultList();
 	}
 
+	/**
+	 * Page of the revisions of the incidents of a patient, latest first. Each incident type is queried
+	 * for at most limit + 1 revisions after the cursor, ordered by version timestamp, revision and id,
+	 * which the (patient_id, version_timestamp) indexes of the audit tables serve without reading
+	 * older history. The pages of the types are merged here.
+	 *
+	 * @param types incident types to include, all if empty
+	 * @param after page token of the previous page, null for the first page
+	 */
 	@Transactional
-	public Incident getCurrent(String id) {
+	public IncidentTimelineDTO getTimeline(String patientId, Set<IncidentType> types, String after, int limit) {
+		if (limit < 1) {
+			throw new BadRequestException("Limit has to be positive");
+		}
+		final IncidentCursor cursor = after == null || after.isEmpty() ? null : IncidentCursor.decode(after);
+		final List<Object[]> revisions = new ArrayList<>();
+		for (IncidentType type : IncidentType.values()) {
+			if (types == null || types.isEmpty() || types.contains(type)) {
+				revisions.addAll(getTimeline(type, patientId, cursor, limit + 1));
+			}
+		}
+		final Comparator<Object[]> timelineOrder = Comparator.comparing(IncidentService::toCursor, IncidentCursor.TIMELINE_ORDER);
+		revisions.sort(timelineOrder);
 
-		String prefix = id.split("_")[0];
-		switch (IncidentType.valueOf(prefix)) {
-			case test:
-				return testIncidentRepo.findById(id).orElseThrow();
-			case quarantine:
-				return quarantineIncidentRepo.findById(id).orElseThrow();
-			case administrative:
-				return adminIncidentRepo.findById(id).orElseThrow();
+		final List<Incident> incidents = new ArrayList<>();
+		for (Object[] revision : revisions.subList(0, Math.min(limit, revisions.size()))) {
+			incidents.add((Incident) revision[0]);
+		}
+		final String nextPageAfter = revisions.size() > limit ? toCursor(revisions.get(limit - 1)).encode() : null;
+		return new IncidentTimelineDTO(incidents, nextPageAfter);
+	}
+
+	private List<Object[]> getTimeline(IncidentType type, String patientId, IncidentCursor cursor, int maxResults) {
+		if (cursor == null) {
+			return createTimelineQuery(type, patientId, maxResults).getResultList();
+		}
+		// Seeks on the version timestamp alone, which the index covers, and drops the versions at the
+		// timestamp of the cursor up to the cursor afterwards. Versions rarely share a timestamp, so a
+		// second query is only needed if they filled the whole result.
+		for (int fetchSize = maxResults; ; fetchSize *= 2) {
+			final List<Object[]> revisions = createTimelineQuery(type, patientId, fetchSize)
+					.add(AuditEntity.property("versionTimestamp").le(cursor.getVersionTimestamp()))
+					.getResultList();
+			final List<Object[]> after = new ArrayList<>();
+			for (Object[] revision : revisions) {
+				if (IncidentCursor.TIMELINE_ORDER.compare(toCursor(revision), cursor) > 0) {
+					after.add(revision);
+				}
+			}
+			if (after.size() >= maxResults || revisions.size() < fetchSize) {
+				return after.subList(0, Math.min(maxResults, after.size()));
+			}
 		}
+	}
 
-		return null;
+	private AuditQuery createTimelineQuery(IncidentType type, String patientId, int maxResults) {
+		return auditReader().createQuery()
+				.forRevisionsOfEntity(type.IMPLEMENTATION, false, false)
+				.add(AuditEntity.relatedId("patient").eq(patientId))
+				.addOrder(AuditEntity.property("versionTimestamp").desc())
+				.addOrder(AuditEntity.revisionNumber().desc())
+				.addOrder(AuditEntity.id().desc())
+				.setMaxResults(maxResults);
 	}
 
-	@Transactional
-	public List<Incident> getCurrentByPatient(String patientId) {
+	private static IncidentCursor toCursor(Object[] revision) {
+		final Incident incident = (Incident) revision[0];
+		return new IncidentCursor(
+				incident.getVersionTimestamp(),
+				((DefaultRevisionEntity) revision[1]).getId(),
+				incident.getId());
+	}
 
-		List<Incident> result = new ArrayList<>();
+	/**
+	 * State of the incidents of a type of the given patients at a point in time, in one query. The
+	 * validity audit strategy stores the revision that ended each audit row, so the query is a range
+	 * condition on the (patient_id, rev, revend) indexes of the audit tables.
+	 */
+	@Transactional
+	public List<Incident> getAsOf(IncidentType type, LocalDateTime timestamp, Collection<String> patientIds) {
+		if (timestamp == null) {
+			throw new BadRequestException("Timestamp is required");
+		}
+		if (patientIds == null || patientIds.isEmpty()) {
+			return List.of();
+		}
+		final AuditReader auditReader = auditReader();
+		final Number revision;
+		try {
+			revision = auditReader.getRevisionNumberForDate(Timestamp.valueOf(timestamp));
+		} catch (RevisionDoesNotExistException e) {
+			// nothing was recorded before the timestamp
+			return List.of();
+		}
+		return auditReader.createQuery()
+				.forEntitiesAtRevision(type.IMPLEMENTATION, revision)
+				.add(AuditEntity.relatedId("patient").in(patientIds.toArray()))
+				.getResultList();
+	}
 
-		result.addAll(testIncidentRepo.findByPatientId(patientId));
-		result.addAll(quarantineIncidentRepo.findByPatientId(patientId));
-		result.addAll(adminIncidentRepo.findByPatientId(patientId));
+	@Transactional
+	public Incident getCurrent(String id) {
+		return incidentRepo.findById(id).orElseThrow();
+	}
 
-		return result;
+	@Transactional
+	public List<Incident> getCurrentByPatient(String patientId) {
+		return incidentRepo.findByPatientId(patientId);
 	}
 
 	@Transactional
 	public List<Incident> getCurrentByPatient(String patientId, IncidentType type) {
+		return incidentRepo.findByPatientIdAndTypeIn(patientId, List.of(type.IMPLEMENTATION), Pageable.unpaged()).getContent();
+	}
 
-		switch (type) {
-			case test:
-				return (List<Incident>) (List<?>) testIncidentRepo.findByPatientId(patientId);
-			case quarantine:
-				return (List<Incident>) (List<?>) quarantineIncidentRepo.findByPatientId(patientId);
-			case administrative:
-				return (List<Incident>) (List<?>) adminIncidentRepo.findByPatientId(patientId);
+	// Reader bound to the entity manager of the current transaction
+	private AuditReader auditReader() {
+		return AuditReaderFactory.get(entityManager);
+	}
+
+	/**
+	 * Runs a query for each incident type on the query executor, each in a read-only transaction of
+	 * an entity manager of its own, and concatenates the results in the order of the types.
+	 */
+	private List<Incident> queryAllTypes(BiFunction<IncidentType, EntityManager, List<? extends Incident>> query) {
+		final List<CompletableFuture<List<? extends Incident>>> results = new ArrayList<>();
+		for (IncidentType type : IncidentType.values()) {
+			results.add(CompletableFuture.supplyAsync(() -> query(em -> query.apply(type, em)), queryExecutor));
+		}
+		final List<Incident> incidents = new ArrayList<>();
+		try {
+			for (CompletableFuture<List<? extends Incident>> result : results) {
+				incidents.addAll(result.join());
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
 		}
+		return incidents;
+	}
 
-		return null;
+	private List<? extends Incident> query(Function<EntityManager, List<? extends Incident>> query) {
+		final EntityManager em = entityManagerFactory.createEntityManager();
+		try {
+			em.unwrap(Session.class).setDefaultReadOnly(true);
+			em.getTransaction().begin();
+			try {
+				final List<? extends Incident> incidents = query.apply(em);
+				incidents.forEach(IncidentService::initialize);
+				return incidents;
+			} finally {
+				em.getTransaction().rollback();
+			}
+		} finally {
+			em.close();
+		}
+	}
+
+	// Loads the associations serialized with an incident before its entity manager is closed
+	private static void initialize(Incident incident) {
+		Hibernate.initialize(incident.getPatient());
+		final Patient patient = incident.getPatient();
+		if (patient != null) {
+			Hibernate.initialize(patient.getEvents());
+			Hibernate.initialize(patient.getSymptoms());
+			Hibernate.initialize(patient.getRiskAreas());
+			Hibernate.initialize(patient.getPreIllnesses());
+		}
+		Hibernate.initialize(incident.getVersionUser());
+		if (incident instanceof AdministrativeIncident) {
+			Hibernate.initialize(((AdministrativeIncident) incident).getResponsibleDoctor());
+		}
 	}
 
 	// Writing
@@ -147,27 +340,6 @@ public class IncidentService {
 		return incident;
 	}
 
-	@Transactional
-	public TestIncident updateIncident(String laboratoryId, UpdateTestStatusDTO update) {
-
-		if(update.getEventDate()==null)
-			update.setEventDate(LocalDate.now());
-
-		var incident = testIncidentRepo.findByTestId(update.getTestId()).get(0);
-		var laboratory = laboratoryRepo.findById(laboratoryId).orElseThrow();
-		incident
-				.setLaboratory(laboratory)
-				.setStatus(update.getStatus())
-				.setComment(update.getComment())
-				.setReport(update.getFile())
-				.setEventType(testStatusToEvent(update.getStatus()))
-				.setEventDate(update.getEventDate());
-		// ToDo bei setStatus und setEventType: Semantik? Sinnvoll so?
-
-		testIncidentRepo.saveAndFlush(incident);
-		return incident;
-	}
-
 	// Quarantine Incidents
 	@Transactional
 	public QuarantineIncident addOrUpdateIncident(String patientId, RequestQuarantineDTO info) {
@@ -221,18 +393,25 @@ public class IncidentService {
 											  Optional<Illness> illness,
 											  EventType eventType,
 											  LocalDate dateOfReporting) {
+		var incident = newIncident(patient, illness, eventType, dateOfReporting);
+		adminIncidentRepo.saveAndFlush(incident);
+		return incident;
+	}
+
+	// Presumtion Event as created by addIncident, without saving it
+	public AdministrativeIncident newIncident(Patient patient,
+											  Optional<Illness> illness,
+											  EventType eventType,
+											  LocalDate dateOfReporting) {
 		var concreteIllness = illness.orElse(Illness.CORONA);
 
 		dateOfReporting = dateOfReporting == null ? LocalDate.now() : dateOfReporting;
 
-		var incident = (AdministrativeIncident) new AdministrativeIncident()
+		return (AdministrativeIncident) new AdministrativeIncident()
 				.setIllness(concreteIllness)
 				.setEventType(eventType)
 				.setEventDate(dateOfReporting)
 				.setPatient(patient);
-
-		adminIncidentRepo.saveAndFlush(incident);
-		return incident;
 	}
 
 	//SCHEDULED_FOR_TESTING
@@ -263,24 +442,4 @@ public class IncidentService {
 
 		return incident;
 	}
-
-	private EventType testStatusToEvent(TestStatus input) {
-		EventType result;
-		switch (input) {
-			case TEST_NEGATIVE:
-				result = EventType.TEST_FINISHED_NEGATIVE;
-				break;
-			case TEST_SUBMITTED:
-			case TEST_IN_PROGRESS:
-				result = EventType.TEST_SUBMITTED_IN_PROGRESS;
-				break;
-			case TEST_POSITIVE:
-				result = EventType.TEST_FINISHED_POSITIVE;
-				break;
-			default:
-				result = EventType.TEST_FINISHED_INVALID;
-
-		}
-		return result;
-	}
 }
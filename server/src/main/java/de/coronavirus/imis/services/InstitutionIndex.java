@@ -0,0 +1,298 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.domain.InstitutionImpl;
+import de.coronavirus.imis.domain.InstitutionType;
+import de.coronavirus.imis.repositories.InstitutionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Typeahead over id, name and city of all institutions, held in memory. The institutions are kept
+ * in the order of their names, so each of the following lookups finds the matches of its rank in
+ * the order of the result and can stop at the limit:
+ * <ol>
+ * <li>the id equal to the term,</li>
+ * <li>names starting with the term, by binary search in the sorted names,</li>
+ * <li>words of the name, ids and cities starting with the term, by binary search in the sorted words,</li>
+ * <li>all other institutions containing the term. Every substring of up to {@value #GRAM_LENGTH}
+ * characters points to the institutions containing it. Longer terms are looked up by their rarest
+ * substring and checked for the whole term.</li>
+ * </ol>
+ * Institutions saved through {@link InstitutionService} are added when their transaction commits.
+ * Institutions saved by other instances or directly in the database are picked up by the periodic
+ * rebuild.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InstitutionIndex {
+	static final int GRAM_LENGTH = 3;
+
+	private static final Comparator<Entry> NAME_ORDER = Comparator.<Entry, String>comparing(entry -> entry.name)
+			.thenComparing(entry -> entry.id);
+
+	private final InstitutionRepository institutionRepository;
+	@Value("${institutions.query.limit:20}")
+	private int limit;
+	// snapshot of the institutions, replaced as a whole
+	private volatile Snapshot snapshot = new Snapshot(List.of());
+
+	@Scheduled(fixedDelayString = "${institutions.index.refresh-interval:300000}")
+	public synchronized void rebuild() {
+		final List<Entry> entries = institutionRepository.findAll().stream()
+				.map(Entry::new)
+				.collect(Collectors.toList());
+		snapshot = new Snapshot(entries);
+		log.debug("Indexed {} institutions", entries.size());
+	}
+
+	/**
+	 * Adds or replaces an institution, within a transaction once the transaction has committed.
+	 */
+	public void put(InstitutionImpl institution) {
+		final Entry entry = new Entry(institution);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					put(entry);
+				}
+			});
+		} else {
+			put(entry);
+		}
+	}
+
+	private synchronized void put(Entry entry) {
+		final Map<String, Entry> entries = new LinkedHashMap<>();
+		for (Entry existing : snapshot.entries) {
+			entries.put(existing.id, existing);
+		}
+		entries.put(entry.id, entry);
+		snapshot = new Snapshot(entries.values());
+	}
+
+	/**
+	 * Institutions whose id, name or city contains the term, ignoring case. The id equal to the term
+	 * comes first, then names starting with the term, then words of the name, ids and cities starting
+	 * with it, and then all other matches, each ordered by name.
+	 *
+	 * @param type type of the institutions, all types if null
+	 * @return ids of at most the configured number of institutions
+	 */
+	public List<String> query(String term, InstitutionType type) {
+		return snapshot.query(normalize(term), type, limit);
+	}
+
+	private static String normalize(String value) {
+		return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static final class Snapshot {
+		// ordered by name
+		private final Entry[] entries;
+		private final String[] names;
+		private final Map<String, Integer> ids = new HashMap<>();
+		// word starts of the names, ids and cities in ascending order, with the position of their entry
+		private final String[] words;
+		private final int[] wordEntries;
+		// positions of the entries containing a substring, ascending
+		private final Map<String, int[]> grams = new HashMap<>();
+
+		private Snapshot(Collection<Entry> entries) {
+			this.entries = entries.stream().sorted(NAME_ORDER).toArray(Entry[]::new);
+			this.names = new String[this.entries.length];
+			final List<Map.Entry<String, Integer>> words = new ArrayList<>();
+			final Map<String, List<Integer>> grams = new HashMap<>();
+			for (int index = 0; index < this.entries.length; index++) {
+				final Entry entry = this.entries[index];
+				names[index] = entry.name;
+				ids.put(entry.lowerId, index);
+				words.add(Map.entry(entry.lowerId, index));
+				words.add(Map.entry(entry.city, index));
+				for (int start = entry.name.indexOf(' '); start >= 0; start = entry.name.indexOf(' ', start + 1)) {
+					words.add(Map.entry(entry.name.substring(start + 1), index));
+				}
+				for (String value : List.of(entry.lowerId, entry.name, entry.city)) {
+					for (int length = 1; length <= GRAM_LENGTH; length++) {
+						for (int start = 0; start + length <= value.length(); start++) {
+							final List<Integer> positions = grams.computeIfAbsent(value.substring(start, start + length),
+									gram -> new ArrayList<>());
+							if (positions.isEmpty() || positions.get(positions.size() - 1) != index) {
+								positions.add(index);
+							}
+						}
+					}
+				}
+			}
+			words.sort(Map.Entry.comparingByKey());
+			this.words = words.stream().map(Map.Entry::getKey).toArray(String[]::new);
+			this.wordEntries = words.stream().mapToInt(Map.Entry::getValue).toArray();
+			grams.forEach((gram, positions) -> this.grams.put(gram, positions.stream().mapToInt(Integer::intValue).toArray()));
+		}
+
+		private List<String> query(String term, InstitutionType type, int limit) {
+			final Result result = new Result(limit);
+			if (term.isEmpty()) {
+				for (int index = 0; index < entries.length && !result.isFull(); index++) {
+					result.add(index, type);
+				}
+				return result.ids();
+			}
+			final Integer byId = ids.get(term);
+			if (byId != null) {
+				result.add(byId, type);
+			}
+			for (int index = lowerBound(names, term); index < names.length && names[index].startsWith(term)
+					&& !result.isFull(); index++) {
+				result.add(index, type);
+			}
+			if (!result.isFull()) {
+				addWordMatches(term, type, result);
+			}
+			if (!result.isFull()) {
+				for (int index : candidates(term)) {
+					if (result.isFull()) {
+						break;
+					}
+					if (entries[index].contains(term)) {
+						result.add(index, type);
+					}
+				}
+			}
+			return result.ids();
+		}
+
+		private void addWordMatches(String term, InstitutionType type, Result result) {
+			final int first = lowerBound(words, term);
+			final int end = lowerBound(words, term + Character.MAX_VALUE);
+			// Scanning in the order of the names ends after about remaining * entries / matches institutions,
+			// the words have to be read completely because their institutions are not in that order
+			if ((long) (end - first) * (end - first) > (long) entries.length * result.remaining()) {
+				final String wordStart = " " + term;
+				for (int index = 0; index < entries.length && !result.isFull(); index++) {
+					if (entries[index].hasWordStartingWith(term, wordStart)) {
+						result.add(index, type);
+					}
+				}
+				return;
+			}
+			// the best matches are the ones of the first institutions
+			final SortedSet<Integer> best = new TreeSet<>();
+			for (int word = first; word < end; word++) {
+				final int index = wordEntries[word];
+				if (result.accepts(index, type) && (best.size() < result.remaining() || index < best.last())) {
+					best.add(index);
+					if (best.size() > result.remaining()) {
+						best.remove(best.last());
+					}
+				}
+			}
+			best.forEach(index -> result.add(index, type));
+		}
+
+		private int[] candidates(String term) {
+			if (term.length() <= GRAM_LENGTH) {
+				return grams.getOrDefault(term, new int[0]);
+			}
+			int[] rarest = null;
+			for (int start = 0; start + GRAM_LENGTH <= term.length(); start++) {
+				final int[] positions = grams.getOrDefault(term.substring(start, start + GRAM_LENGTH), new int[0]);
+				if (rarest == null || positions.length < rarest.length) {
+					rarest = positions;
+				}
+			}
+			return rarest;
+		}
+
+		private static int lowerBound(String[] values, String term) {
+			final int index = Arrays.binarySearch(values, term);
+			if (index < 0) {
+				return -index - 1;
+			}
+			// equal values are adjacent, the search may have hit any of them
+			int first = index;
+			while (first > 0 && values[first - 1].equals(term)) {
+				first--;
+			}
+			return first;
+		}
+
+		// Matches in the order they were found, each institution once
+		private final class Result {
+			private final int limit;
+			private final Set<Integer> positions = new LinkedHashSet<>();
+
+			private Result(int limit) {
+				this.limit = limit;
+			}
+
+			private boolean accepts(int index, InstitutionType type) {
+				return (type == null || entries[index].type == type) && !positions.contains(index);
+			}
+
+			private void add(int index, InstitutionType type) {
+				if (!isFull() && accepts(index, type)) {
+					positions.add(index);
+				}
+			}
+
+			private boolean isFull() {
+				return positions.size() >= limit;
+			}
+
+			private int remaining() {
+				return limit - positions.size();
+			}
+
+			private List<String> ids() {
+				return positions.stream().map(index -> entries[index].id).collect(Collectors.toList());
+			}
+		}
+	}
+
+	// Searched attributes of an institution in lower case
+	private static final class Entry {
+		private final String id;
+		private final InstitutionType type;
+		private final String lowerId;
+		private final String name;
+		private final String city;
+
+		private Entry(InstitutionImpl institution) {
+			this.id = institution.getId();
+			this.type = institution.getType();
+			this.lowerId = normalize(id);
+			this.name = normalize(institution.getName());
+			this.city = normalize(institution.getCity());
+		}
+
+		private boolean hasWordStartingWith(String term, String wordStart) {
+			return lowerId.startsWith(term) || city.startsWith(term) || name.contains(wordStart);
+		}
+
+		private boolean contains(String term) {
+			return name.contains(term) || lowerId.contains(term) || city.contains(term);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package de.coronavirus.imis.services;
 
 import de.coronavirus.imis.api.dto.CreateInstitutionDTO;
 import de.coronavirus.imis.api.dto.InstitutionDTO;
+import de.coronavirus.imis.config.CustomerUserDetailService;
 import de.coronavirus.imis.domain.Doctor;
 import de.coronavirus.imis.domain.InstitutionImpl;
 import de.coronavirus.imis.domain.InstitutionType;
@@ -13,6 +14,8 @@ import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -24,6 +27,8 @@ public class InstitutionService {
 	private final ClinicRepository clinicRepository;
 	private final TestSiteRepository testSiteRepository;
 	private final DepartmentOfHealthRepository departmentOfHealthRepository;
+	private final InstitutionIndex institutionIndex;
+	private final CustomerUserDetailService userDetailService;
 
 	private final InstitutionMapper institutionMapper;
 
@@ -47,12 +52,17 @@ public class InstitutionService {
 		institution.setPhoneNumber(institutionDTO.getPhoneNumber());
 		institution.setStreet(institutionDTO.getStreet());
 		institution.setZip(institutionDTO.getZip());
-		return this.institutionRepository.saveAndFlush(institution);
+		final InstitutionImpl saved = this.institutionRepository.saveAndFlush(institution);
+		institutionIndex.put(saved);
+		userDetailService.evictInstitution(saved.getId());
+		return saved;
 	}
 
 	@Transactional
 	public <T extends InstitutionImpl> T addInstitution(T institution) {
-		return (T) this.institutionRepository.saveAndFlush((InstitutionImpl) institution);
+		final T saved = (T) this.institutionRepository.saveAndFlush((InstitutionImpl) institution);
+		institutionIndex.put(saved);
+		return saved;
 	}
 
 	public InstitutionImpl addInstitution(CreateInstitutionDTO dto) {
@@ -64,13 +74,17 @@ public class InstitutionService {
 	}
 
 	/**
-	 * Query for institution by part of id
+	 * Query for laboratories by part of id, name or city. The matches are looked up in the
+	 * {@link InstitutionIndex} and loaded from the second-level cache.
 	 *
-	 * @param id id or a part of an id
-	 * @return List of matching institutions
+	 * @param id id or a part of an id, name or city
+	 * @return List of matching laboratories, best matches first
 	 */
 	@Transactional
 	public List<Laboratory> queryLaboratory(String id) {
-		return laboratoryRepository.queryLaboratory(id);
+		return institutionIndex.query(id, InstitutionType.LABORATORY).stream()
+				.map(laboratoryRepository::findById)
+				.flatMap(Optional::stream)
+				.collect(Collectors.toList());
 	}
 }
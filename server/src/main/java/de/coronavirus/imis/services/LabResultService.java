@@ -0,0 +1,131 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.UpdateTestStatusDTO;
+import de.coronavirus.imis.api.exception.BadRequestException;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Illness;
+import de.coronavirus.imis.domain.LabTest;
+import de.coronavirus.imis.domain.LabTestNotFoundException;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.PatientEvent;
+import de.coronavirus.imis.domain.PatientNotFoundException;
+import de.coronavirus.imis.domain.TestIncident;
+import de.coronavirus.imis.domain.TestStatus;
+import de.coronavirus.imis.repositories.LabTestRepository;
+import de.coronavirus.imis.repositories.PatientEventRepository;
+import de.coronavirus.imis.repositories.TestIncidentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Applies the result a laboratory reports for a test. The lab test, its test incident, the status of the
+ * patient, the new event of the patient and the zip statistic are changed in one transaction. None of the
+ * reads covers a table changed before it, so Hibernate writes all changes with the single flush at the end of
+ * the transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class LabResultService {
+
+	private final LabTestRepository labTestRepository;
+	private final TestIncidentRepository testIncidentRepository;
+	private final PatientEventRepository patientEventRepository;
+	private final PatientEventService eventService;
+	private final BlobStore blobStore;
+
+	/**
+	 * @param laboratoryId laboratory reporting the result, the test has to be registered for it
+	 * @param dto          result, with the report inline or with the hash of a report stored before
+	 * @throws BadRequestException if no report is stored under the hash of the result
+	 * @return updated lab test
+	 */
+	@Transactional
+	public LabTest applyResult(String laboratoryId, UpdateTestStatusDTO dto) {
+		// by test id and laboratory, both indexed
+		final LabTest labTest = labTestRepository.findFirstByTestIdAndLaboratoryId(dto.getTestId(), laboratoryId)
+				.orElseThrow(LabTestNotFoundException::new);
+		final List<PatientEvent> events = patientEventRepository.findWithPatientByLabTest(labTest);
+		final Patient patient = events.stream()
+				.map(PatientEvent::getPatient)
+				.findFirst()
+				.orElseThrow(PatientNotFoundException::new);
+		// Tests registered without going through the incidents, e.g. by the TestDataLoader, have none
+		final Optional<TestIncident> incident = testIncidentRepository.findFirstByTestIdAndLaboratoryId(
+				dto.getTestId(), laboratoryId);
+		final EventType eventType = testStatusToEvent(dto.getStatus());
+		// the hash can come from the client, it must not reference anything but a stored report
+		if (dto.getFile() == null && dto.getReportHash() != null && !blobStore.exists(dto.getReportHash())) {
+			throw new BadRequestException("No report stored under " + dto.getReportHash());
+		}
+		// stored once the result is known to be valid, so rejected results leave no report behind
+		if (dto.getFile() != null) {
+			dto.setReportHash(storeReport(dto.getFile()));
+			dto.setFile(null);
+		}
+
+		labTest.setTestStatus(dto.getStatus());
+		labTest.setReportHash(dto.getReportHash());
+		labTest.setLastUpdate(OffsetDateTime.now());
+
+		incident.ifPresent(testIncident -> testIncident
+				.setStatus(dto.getStatus())
+				.setComment(dto.getComment())
+				.setReportHash(dto.getReportHash())
+				.setEventType(eventType)
+				.setEventDate(dto.getEventDate() == null ? LocalDate.now() : dto.getEventDate()));
+
+		// the zip stays the same, the statistic is moved along with the new event
+		patient.setPatientStatus(eventType);
+
+		final PatientEvent event = new PatientEvent()
+				.setIllness(Illness.CORONA)
+				.setEventType(eventType)
+				.setEventTimestamp(Timestamp.valueOf(LocalDateTime.now()))
+				.setLabTest(labTest)
+				.setPatient(patient)
+				.setComment(dto.getComment());
+		events.stream()
+				.map(PatientEvent::getResponsibleDoctor)
+				.filter(Objects::nonNull)
+				.findFirst()
+				.ifPresent(event::setResponsibleDoctor);
+		eventService.addEvent(event);
+
+		return labTest;
+	}
+
+	// The lab test and the test incident reference the report by its hash and share one copy
+	private String storeReport(byte[] report) {
+		try {
+			return blobStore.put(new ByteArrayInputStream(report));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private EventType testStatusToEvent(TestStatus input) {
+		switch (input) {
+			case TEST_NEGATIVE:
+				return EventType.TEST_FINISHED_NEGATIVE;
+			case TEST_SUBMITTED:
+			case TEST_IN_PROGRESS:
+				return EventType.TEST_SUBMITTED_IN_PROGRESS;
+			case TEST_POSITIVE:
+				return EventType.TEST_FINISHED_POSITIVE;
+			default:
+				return EventType.TEST_FINISHED_INVALID;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package de.coronavirus.imis.services;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Blob store in a directory of the local file system, for development and single instance
+ * installations. Content is written to a temporary file while it is hashed and then moved to its
+ * final name, so readers never see partial content.
+ */
+@Service
+@ConditionalOnProperty(name = "imis.blob-store.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+	@Value("${imis.blob-store.local.directory:${java.io.tmpdir}/imis-blobs}")
+	private String directoryName;
+	private Path directory;
+
+	@PostConstruct
+	protected void init() throws IOException {
+		directory = Paths.get(directoryName);
+		Files.createDirectories(directory);
+	}
+
+	@Override
+	public String put(InputStream content) throws IOException {
+		final Path upload = Files.createTempFile(directory, "upload-", ".tmp");
+		try {
+			final HashingInputStream hashing = new HashingInputStream(Hashing.sha256(), content);
+			Files.copy(hashing, upload, StandardCopyOption.REPLACE_EXISTING);
+			final String hash = hashing.hash().toString();
+			final Path target = path(hash);
+			if (!Files.exists(target)) {
+				Files.createDirectories(target.getParent());
+				// replaces content stored concurrently under the same hash, which is the same
+				Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			return hash;
+		} finally {
+			Files.deleteIfExists(upload);
+		}
+	}
+
+	@Override
+	public Optional<InputStream> get(String hash) throws IOException {
+		BlobStore.checkHash(hash);
+		final Path path = path(hash);
+		return Files.exists(path) ? Optional.of(Files.newInputStream(path)) : Optional.empty();
+	}
+
+	@Override
+	public boolean exists(String hash) {
+		BlobStore.checkHash(hash);
+		return Files.exists(path(hash));
+	}
+
+	// Two levels, so no directory holds more than a fraction of the blobs
+	private Path path(String hash) {
+		return directory.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+}
@@ -0,0 +1,96 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the BCrypt hashing of logins and password changes on a small pool of its own, so a burst of
+ * logins cannot take the CPU from all other requests. If the queue of the pool is full, the request
+ * is rejected right away with 503.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PasswordHashService {
+	private final PasswordEncoder encoder;
+	private final MeterRegistry meterRegistry;
+	@Value("${security.password-hash.threads:2}")
+	private int threads;
+	@Value("${security.password-hash.queue-capacity:100}")
+	private int queueCapacity;
+	private ThreadPoolExecutor executor;
+	private Timer hashTimer;
+	private Counter rejectedCounter;
+
+	@PostConstruct
+	protected void init() {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet()));
+		Gauge.builder("imis.password.hash.queue", executor, pool -> pool.getQueue().size())
+				.description("Password hashes waiting for a thread")
+				.register(meterRegistry);
+		Gauge.builder("imis.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+				.description("Password hashes being computed")
+				.register(meterRegistry);
+		hashTimer = Timer.builder("imis.password.hash")
+				.description("Time to compute a password hash, without waiting in the queue")
+				.register(meterRegistry);
+		rejectedCounter = Counter.builder("imis.password.hash.rejected")
+				.description("Password hashes rejected because the queue was full")
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	protected void shutdown() {
+		executor.shutdown();
+	}
+
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return hash(() -> encoder.matches(rawPassword, encodedPassword));
+	}
+
+	public String encode(CharSequence rawPassword) {
+		return hash(() -> encoder.encode(rawPassword));
+	}
+
+	private <T> T hash(Callable<T> hash) {
+		final Future<T> result;
+		try {
+			result = executor.submit(() -> hashTimer.recordCallable(hash));
+		} catch (RejectedExecutionException e) {
+			rejectedCounter.increment();
+			log.warn("rejected password hash, {} hashes are waiting", executor.getQueue().size());
+			throw new ServiceUnavailableException("Zu viele Anmeldungen, bitte später erneut versuchen");
+		}
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.cancel(true);
+			throw new ServiceUnavailableException("Anmeldung abgebrochen");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("password hash failed", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package de.coronavirus.imis.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.coronavirus.imis.api.exception.BadRequestException;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Position after the last patient of a page of the patient search, used for keyset pagination.
+ * The cursor holds the value of the sort attribute and the id of that patient and is handed to
+ * clients as an opaque token.
+ * <p>
+ * Null values sort as the greatest value of an attribute ("nulls last" ascending, "nulls first"
+ * descending), which is the default ordering of PostgreSQL indexes.
+ */
+@Getter
+@AllArgsConstructor
+public class PatientCursor {
+
+	/**
+	 * Attributes the patient search can be ordered by, with their types.
+	 */
+	static final Map<String, Class<?>> SORTABLE_ATTRIBUTES = Map.of(
+			"id", String.class,
+			"firstName", String.class,
+			"lastName", String.class,
+			"gender", String.class,
+			"zip", String.class,
+			"city", String.class,
+			"dateOfBirth", LocalDate.class,
+			"patientStatus", EventType.class,
+			"creationTimestamp", OffsetDateTime.class);
+
+	private static final ObjectMapper mapper = JsonMapper.builder()
+			.addModule(new JavaTimeModule())
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.build();
+
+	private final String orderBy;
+	private final Sort.Direction direction;
+	private final Object value;
+	private final String id;
+
+	public static String resolveOrderBy(String orderBy) {
+		if (orderBy == null || orderBy.isEmpty()) {
+			return "id";
+		}
+		if (!SORTABLE_ATTRIBUTES.containsKey(orderBy)) {
+			throw new BadRequestException("Cannot order patients by " + orderBy);
+		}
+		return orderBy;
+	}
+
+	public static Sort.Direction resolveDirection(String order) {
+		if (order == null || order.isEmpty()) {
+			return Sort.Direction.ASC;
+		}
+		return Sort.Direction.fromOptionalString(order)
+				.orElseThrow(() -> new BadRequestException("Unknown sort order " + order));
+	}
+
+	public static PatientCursor after(Patient patient, String orderBy, Sort.Direction direction) {
+		final Object value = PropertyAccessorFactory.forBeanPropertyAccess(patient).getPropertyValue(orderBy);
+		return new PatientCursor(orderBy, direction, value, patient.getId());
+	}
+
+	/**
+	 * Decodes a token created by {@link #encode()}. The token has to belong to a query with the same order.
+	 */
+	public static PatientCursor decode(String token, String orderBy, Sort.Direction direction) {
+		final Token decoded;
+		try {
+			decoded = mapper.readValue(Base64.getUrlDecoder().decode(token), Token.class);
+		} catch (IOException | IllegalArgumentException e) {
+			throw new BadRequestException("Invalid page token");
+		}
+		if (!orderBy.equals(decoded.getOrderBy()) || direction != decoded.getDirection() || decoded.getId() == null) {
+			throw new BadRequestException("Page token does not match the order of the query");
+		}
+		final Object value = mapper.convertValue(decoded.getValue(), SORTABLE_ATTRIBUTES.get(orderBy));
+		return new PatientCursor(orderBy, direction, value, decoded.getId());
+	}
+
+	public String encode() {
+		try {
+			final byte[] json = mapper.writeValueAsBytes(new Token(orderBy, direction, value, id));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot encode page token", e);
+		}
+	}
+
+	/**
+	 * Order by clause matching the keyset predicate, the id breaks ties.
+	 */
+	public static String getOrderSql(String alias, String orderBy, Sort.Direction direction) {
+		final String idOrder = alias + ".id " + direction.name();
+		if ("id".equals(orderBy)) {
+			return idOrder;
+		}
+		final String nulls = direction.isAscending() ? " nulls last" : " nulls first";
+		return alias + "." + orderBy + " " + direction.name() + nulls + ", " + idOrder;
+	}
+
+	/**
+	 * Ranges of the rows after this cursor, in the order of the search. Each range is a predicate the
+	 * database can seek to in the index on the sort attribute and the id, so reading a page costs the
+	 * same at any depth. The null values of the attribute form a range of their own, a page continues
+	 * from one range into the next. The predicates use the ordinal parameters {@code position} and
+	 * {@code position + 1}, see {@link Seek#getParameters()}.
+	 */
+	public List<Seek> getSeeks(String alias, int position) {
+		final String attribute = alias + "." + orderBy;
+		final String idAttribute = alias + ".id";
+		final String cmp = direction.isAscending() ? " > " : " < ";
+		if ("id".equals(orderBy)) {
+			return List.of(new Seek("AND " + idAttribute + cmp + "?" + position + " ", id));
+		}
+		if (value == null) {
+			final Seek nulls = new Seek("AND " + attribute + " is null AND " + idAttribute + cmp + "?" + position + " ", id);
+			// nulls sort last ascending, descending the values follow them
+			return direction.isAscending()
+					? List.of(nulls)
+					: List.of(nulls, new Seek("AND " + attribute + " is not null "));
+		}
+		// a row value comparison is a single range of the index, unlike the equivalent "or" of both columns
+		final Seek values = new Seek("AND (" + attribute + ", " + idAttribute + ")" + cmp
+				+ "(?" + position + ", ?" + (position + 1) + ") ", value, id);
+		return direction.isAscending()
+				? List.of(values, new Seek("AND " + attribute + " is null "))
+				: List.of(values);
+	}
+
+	/**
+	 * Predicate of a range of rows after a cursor with the values of its parameters.
+	 */
+	@Getter
+	public static class Seek {
+		private final String sql;
+		private final Object[] parameters;
+
+		Seek(String sql, Object... parameters) {
+			this.sql = sql;
+			this.parameters = parameters;
+		}
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	private static class Token {
+		private String orderBy;
+		private Sort.Direction direction;
+		private Object value;
+		private String id;
+	}
+}
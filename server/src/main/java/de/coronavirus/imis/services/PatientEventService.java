@@ -1,5 +1,6 @@
 package de.coronavirus.imis.services;
 
+import com.google.common.collect.Lists;
 import de.coronavirus.imis.domain.*;
 import de.coronavirus.imis.repositories.DoctorRepository;
 import de.coronavirus.imis.repositories.LaboratoryRepository;
@@ -13,39 +14,64 @@ import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class PatientEventService {
 
+	// Keeps the IN list of the batched lookup well below the bind parameter limit of the database
+	private static final int LATEST_EVENT_BATCH_SIZE = 1000;
+
+	// The greatest event is the latest, as in PatientEventRepository.findFirstByPatientOrderByEventTimestampDescIdDesc
+	private static final Comparator<PatientEvent> EVENT_ORDER = Comparator.comparing(PatientEvent::getEventTimestamp)
+			.thenComparing(PatientEvent::getId);
+
 	private final PatientEventRepository patientEventRepository;
 	private final LaboratoryRepository laboratoryRepository;
 	private final DoctorRepository doctorRepository;
 	private final PatientRepository patientRepository;
+	private final ZipStatisticService zipStatisticService;
 
+	@Transactional
 	public void createInitialPatientEvent(Patient patient,
 										  Optional<Illness> illness,
 										  EventType eventType,
 										  LocalDate dateOfReporting) {
-		var concreteIllness = illness.orElse(Illness.CORONA);
 		patient.setPatientStatus(eventType);
 		patientRepository.save(patient);
+		// The first event of the patient, so there is no previous one to replace in the zip statistic
+		final PatientEvent saved = patientEventRepository.save(newInitialPatientEvent(patient, illness, eventType, dateOfReporting));
+		zipStatisticService.movePatient(null, null, patient.getZip(), saved.getEventType());
+	}
+
+	/**
+	 * Initial event of a new patient as created by {@link #createInitialPatientEvent}, without saving it.
+	 */
+	public PatientEvent newInitialPatientEvent(Patient patient,
+											   Optional<Illness> illness,
+											   EventType eventType,
+											   LocalDate dateOfReporting) {
 		final Timestamp eventTimestamp;
 		if (dateOfReporting != null) {
 			eventTimestamp = Timestamp.valueOf(dateOfReporting.atTime(12, 0));
 		} else {
 			eventTimestamp = Timestamp.from(Instant.now());
 		}
-		PatientEvent event = new PatientEvent()
+		return new PatientEvent()
 				.setEventTimestamp(eventTimestamp)
 				.setEventType(eventType)
-				.setIllness(concreteIllness)
+				.setIllness(illness.orElse(Illness.CORONA))
 				.setPatient(patient);
-		patientEventRepository.save(event);
 	}
 
+	@Transactional
 	public void createLabTestEvent(Patient patient, LabTest labTest,
 								   Optional<Illness> illness) {
 		var concreteIllness = illness.orElse(Illness.CORONA);
@@ -57,7 +83,7 @@ public class PatientEventService {
 				.setLabTest(labTest)
 				.setIllness(concreteIllness)
 				.setPatient(patient);
-		patientEventRepository.saveAndFlush(event);
+		addEvent(event);
 	}
 
 	@Transactional
@@ -82,9 +108,10 @@ public class PatientEventService {
 				.setIllness(Illness.CORONA)
 				.setResponsibleDoctor(doctor)
 				.setPatient(patient);
-		return patientEventRepository.save(event);
+		return addEvent(event);
 	}
 
+	@Transactional
 	public void createQuarantineEvent (Patient patient, String until, String comment) {
 
 		var commentField = String.format("Bis: %s; %s", until, comment);
@@ -96,9 +123,10 @@ public class PatientEventService {
 				.setPatient(patient)
 				.setComment(commentField);
 
-		patientEventRepository.saveAndFlush(event);
+		addEvent(event);
 	}
 
+	@Transactional
 	public PatientEvent createOrderTestEvent (Patient patient) {
 		patient.setPatientStatus(EventType.ORDER_TEST);
 		patientRepository.save(patient);
@@ -107,21 +135,57 @@ public class PatientEventService {
 				.setEventType(EventType.ORDER_TEST)
 				.setEventTimestamp(Timestamp.valueOf(LocalDateTime.now()))
 				.setPatient(patient);
-		patientEventRepository.saveAndFlush(event);
-		return event;
+		return addEvent(event);
+	}
 
+	/**
+	 * Saves a new event. If it becomes the latest event of its patient, the zip statistic is updated
+	 * in the same transaction. The patient stays locked until the end of the transaction, so concurrent
+	 * events of a patient see each other as their previous event.
+	 *
+	 * @param event new event, the patient has to be set
+	 * @return saved event
+	 */
+	@Transactional
+	public PatientEvent addEvent(PatientEvent event) {
+		final Patient patient = event.getPatient();
+		zipStatisticService.lockPatient(patient.getId());
+		final PatientEvent previous = patientEventRepository.findFirstByPatientOrderByEventTimestampDescIdDesc(patient);
+		final PatientEvent saved = patientEventRepository.save(event);
+		if (previous == null) {
+			zipStatisticService.movePatient(null, null, patient.getZip(), saved.getEventType());
+		} else if (EVENT_ORDER.compare(saved, previous) > 0) {
+			zipStatisticService.movePatient(patient.getZip(), previous.getEventType(),
+					patient.getZip(), saved.getEventType());
+		}
+		return saved;
 	}
 
 	public List<PatientEvent> getAllForPatient(Patient patient) {
 		return patientEventRepository.findAllByPatient(patient);
 	}
 
-	public List<PatientEvent> getForLabTest(LabTest labTest) {
-		return patientEventRepository.findPatientEventByLabTest(labTest);
-	}
-
 
 	public PatientEvent findFirstByPatientOrderByEventTimestampDesc(Patient patient) {
-		return patientEventRepository.findFirstByPatientOrderByEventTimestampDesc(patient);
+		return patientEventRepository.findFirstByPatientOrderByEventTimestampDescIdDesc(patient);
+	}
+
+	/**
+	 * Batched variant of {@link #findFirstByPatientOrderByEventTimestampDesc(Patient)}. Of several events at
+	 * the latest timestamp the one with the greatest id is kept, as there and in the zip statistic.
+	 *
+	 * @param patients patients to look up
+	 * @return latest event per patient id, patients without events are missing in the map
+	 */
+	public Map<String, PatientEvent> findLatestEventsByPatient(List<Patient> patients) {
+		final List<String> patientIds = patients.stream()
+				.map(Patient::getId)
+				.collect(Collectors.toList());
+		final Map<String, PatientEvent> latestEvents = new HashMap<>();
+		for (List<String> batch : Lists.partition(patientIds, LATEST_EVENT_BATCH_SIZE)) {
+			patientEventRepository.findLatestByPatientIds(batch)
+					.forEach(event -> latestEvents.merge(event.getPatient().getId(), event, BinaryOperator.maxBy(EVENT_ORDER)));
+		}
+		return latestEvents;
 	}
 }
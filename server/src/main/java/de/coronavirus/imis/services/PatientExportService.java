@@ -0,0 +1,147 @@
+package de.coronavirus.imis.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.domain.Patient;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes all patients matching a search as NDJSON or CSV. The patients are read with a forward-only
+ * cursor and evicted once written, so the memory used does not depend on the number of patients.
+ */
+@Service
+@RequiredArgsConstructor
+public class PatientExportService {
+
+	// Rows the JDBC driver fetches per round trip, PostgreSQL only streams inside a transaction
+	static final int FETCH_SIZE = 1000;
+
+	private static final Map<String, Function<Patient, Object>> COLUMNS = new LinkedHashMap<>();
+
+	static {
+		COLUMNS.put("id", Patient::getId);
+		COLUMNS.put("lastName", Patient::getLastName);
+		COLUMNS.put("firstName", Patient::getFirstName);
+		COLUMNS.put("gender", Patient::getGender);
+		COLUMNS.put("dateOfBirth", Patient::getDateOfBirth);
+		COLUMNS.put("dateOfDeath", Patient::getDateOfDeath);
+		COLUMNS.put("email", Patient::getEmail);
+		COLUMNS.put("phoneNumber", Patient::getPhoneNumber);
+		COLUMNS.put("street", Patient::getStreet);
+		COLUMNS.put("houseNumber", Patient::getHouseNumber);
+		COLUMNS.put("zip", Patient::getZip);
+		COLUMNS.put("city", Patient::getCity);
+		COLUMNS.put("country", Patient::getCountry);
+		COLUMNS.put("insuranceCompany", Patient::getInsuranceCompany);
+		COLUMNS.put("insuranceMembershipNumber", Patient::getInsuranceMembershipNumber);
+		COLUMNS.put("patientStatus", Patient::getPatientStatus);
+		COLUMNS.put("quarantineUntil", Patient::getQuarantineUntil);
+		COLUMNS.put("creationTimestamp", Patient::getCreationTimestamp);
+	}
+
+	public enum Format {
+		NDJSON, CSV
+	}
+
+	private final PatientQueryService patientQueryService;
+	private final ObjectMapper objectMapper;
+	@PersistenceContext
+	private final EntityManager entityManager;
+
+	/**
+	 * Writes the patients matching the filters of the search in the order of the search. Offset, page
+	 * size and page token of the search are ignored.
+	 */
+	@Transactional
+	public void export(PatientSearchParamsDTO patientSearchParamsDTO, Format format, OutputStream out) throws IOException {
+		final String orderBy = PatientCursor.resolveOrderBy(patientSearchParamsDTO.getOrderBy());
+		final Sort.Direction direction = PatientCursor.resolveDirection(patientSearchParamsDTO.getOrder());
+		final String sql = "select pat from Patient pat "
+				+ this.patientQueryService.getQueryPatientsSql(patientSearchParamsDTO)
+				+ " order by " + PatientCursor.getOrderSql("pat", orderBy, direction);
+		final Query<?> query = this.patientQueryService.getQuery(sql, patientSearchParamsDTO, Patient.class)
+				.unwrap(Query.class)
+				.setFetchSize(FETCH_SIZE)
+				.setReadOnly(true)
+				.setCacheMode(CacheMode.IGNORE);
+		final Session session = entityManager.unwrap(Session.class);
+
+		try (ScrollableResults patients = query.scroll(ScrollMode.FORWARD_ONLY)) {
+			if (format == Format.CSV) {
+				writeCsv(patients, session, out);
+			} else {
+				writeNdjson(patients, session, out);
+			}
+		}
+	}
+
+	private void writeNdjson(ScrollableResults patients, Session session, OutputStream out) throws IOException {
+		final JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+		while (patients.next()) {
+			final Patient patient = (Patient) patients.get(0);
+			generator.writeStartObject();
+			for (Map.Entry<String, Function<Patient, Object>> column : COLUMNS.entrySet()) {
+				generator.writeObjectField(column.getKey(), column.getValue().apply(patient));
+			}
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+			session.evict(patient);
+		}
+		generator.flush();
+	}
+
+	private void writeCsv(ScrollableResults patients, Session session, OutputStream out) throws IOException {
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		writer.write(String.join(",", COLUMNS.keySet()));
+		writer.write("\r\n");
+		while (patients.next()) {
+			final Patient patient = (Patient) patients.get(0);
+			boolean first = true;
+			for (Function<Patient, Object> column : COLUMNS.values()) {
+				if (!first) {
+					writer.write(',');
+				}
+				first = false;
+				final Object value = column.apply(patient);
+				if (value != null) {
+					writer.write(escapeCsv(value.toString()));
+				}
+			}
+			writer.write("\r\n");
+			session.evict(patient);
+		}
+		writer.flush();
+	}
+
+	static String escapeCsv(String value) {
+		// Spreadsheets evaluate cells starting with one of these as formulas, the apostrophe makes them text
+		if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+			return "\"'" + value.replace("\"", "\"\"") + '"';
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
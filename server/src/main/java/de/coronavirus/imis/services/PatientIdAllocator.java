@@ -0,0 +1,93 @@
+package de.coronavirus.imis.services;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hands out patient ids from a database sequence, so ids are unique across all instances. Each
+ * instance takes a block of {@value #BLOCK_SIZE} numbers from the sequence at once and numbers not
+ * used before a restart are skipped.
+ * <p>
+ * Ids have the eight characters of the former hashed ids: seven characters of the number in the
+ * base32 alphabet of Crockford, which leaves out I, L, O and U, and a check character (Luhn mod 32)
+ * that detects mistyped characters and most swapped neighbours. The sequence starts at G000000, so
+ * new ids never consist of hexadecimal characters only and cannot collide with the hashed ids.
+ */
+@Component
+@RequiredArgsConstructor
+public class PatientIdAllocator {
+
+	static final String SEQUENCE = "patient_id_sequence";
+	static final int BLOCK_SIZE = 50;
+	static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+	static final int LENGTH = 7;
+	static final long FIRST = 16L << 30;
+	static final long LAST = (1L << 35) - 1;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManagerFactory entityManagerFactory;
+
+	private String nextValueQuery;
+	private long next;
+	private long end;
+
+	@PostConstruct
+	void init() {
+		// Not known to Hibernate, so it survives the recreation of the schema
+		jdbcTemplate.execute("create sequence if not exists " + SEQUENCE
+				+ " start with " + FIRST + " increment by " + BLOCK_SIZE);
+		final Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		nextValueQuery = dialect.getSequenceNextValString(SEQUENCE);
+	}
+
+	public synchronized String nextId() {
+		if (next == end) {
+			next = jdbcTemplate.queryForObject(nextValueQuery, Long.class);
+			end = next + BLOCK_SIZE;
+		}
+		return encode(next++);
+	}
+
+	static String encode(long number) {
+		if (number < FIRST || number > LAST) {
+			throw new IllegalStateException("Patient id " + number + " is out of range");
+		}
+		final char[] id = new char[LENGTH + 1];
+		for (int index = LENGTH - 1; index >= 0; index--) {
+			id[index] = ALPHABET.charAt((int) (number & 31));
+			number >>>= 5;
+		}
+		id[LENGTH] = checkCharacter(new String(id, 0, LENGTH));
+		return new String(id);
+	}
+
+	/**
+	 * Luhn mod 32: from the right, every second value is doubled and its two base32 digits are added.
+	 */
+	static char checkCharacter(String payload) {
+		int sum = 0;
+		boolean doubled = true;
+		for (int index = payload.length() - 1; index >= 0; index--) {
+			int value = ALPHABET.indexOf(payload.charAt(index));
+			if (doubled) {
+				value *= 2;
+				value = value / 32 + value % 32;
+			}
+			sum += value;
+			doubled = !doubled;
+		}
+		return ALPHABET.charAt((32 - sum % 32) % 32);
+	}
+
+	static boolean isValid(String id) {
+		return id != null && id.length() == LENGTH + 1
+				&& id.substring(0, LENGTH).chars().allMatch(c -> ALPHABET.indexOf(c) >= 0)
+				&& checkCharacter(id.substring(0, LENGTH)) == id.charAt(LENGTH);
+	}
+}
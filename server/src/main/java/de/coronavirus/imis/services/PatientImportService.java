@@ -0,0 +1,163 @@
+package de.coronavirus.imis.services;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.coronavirus.imis.api.dto.CreatePatientDTO;
+import de.coronavirus.imis.api.dto.PatientImportResultDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.ZipStatistic;
+import de.coronavirus.imis.mapper.PatientMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registers many patients at once. The rows are persisted in chunks, each chunk in one transaction
+ * with one flush, so Hibernate can send the inserts as JDBC batches. A failing row does not abort the
+ * import: its chunk is rolled back and retried row by row.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PatientImportService {
+
+	// Multiple of hibernate.jdbc.batch_size
+	static final int CHUNK_SIZE = 200;
+
+	private final PatientIdAllocator patientIdAllocator;
+	private final PatientEventService eventService;
+	private final IncidentService incidentService;
+	private final ZipStatisticService zipStatisticService;
+	private final PatientMapper patientMapper;
+	private final ObjectMapper objectMapper;
+	private final PlatformTransactionManager transactionManager;
+	@PersistenceContext
+	private final EntityManager entityManager;
+
+	/**
+	 * Reads {@link CreatePatientDTO}s from a JSON array or from newline delimited JSON and registers them
+	 * like {@link PatientService#addPatient(CreatePatientDTO, boolean)}. Rows that cannot be read or
+	 * stored are reported as failed. Malformed JSON ends the import, the rows before are kept.
+	 */
+	public PatientImportResultDTO importPatients(InputStream json, boolean registeredByInstitution) throws IOException {
+		final PatientImportResultDTO result = new PatientImportResultDTO();
+		final List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+		try (MappingIterator<CreatePatientDTO> dtos = objectMapper.readerFor(CreatePatientDTO.class).readValues(json)) {
+			for (int index = 0; ; index++) {
+				final CreatePatientDTO dto;
+				try {
+					if (!dtos.hasNextValue()) {
+						break;
+					}
+					dto = dtos.nextValue();
+				} catch (JsonParseException e) {
+					result.addFailed(index, e.getOriginalMessage());
+					break;
+				} catch (JsonMappingException e) {
+					// the iterator continues with the next row
+					result.addFailed(index, e.getOriginalMessage());
+					continue;
+				}
+				try {
+					chunk.add(toImportRow(index, dto, registeredByInstitution));
+				} catch (RuntimeException e) {
+					result.addFailed(index, e.getMessage());
+				}
+				if (chunk.size() == CHUNK_SIZE) {
+					persistChunk(chunk, result);
+				}
+			}
+		}
+		persistChunk(chunk, result);
+		result.getRows().sort(Comparator.comparingInt(PatientImportResultDTO.Row::getIndex));
+		return result;
+	}
+
+	private ImportRow toImportRow(int index, CreatePatientDTO dto, boolean registeredByInstitution) {
+		final ImportRow row = new ImportRow(index, dto, registeredByInstitution, patientIdAllocator.nextId(),
+				patientMapper.parseDate(dto.getDateOfReporting()));
+		// rows that cannot be mapped fail before their chunk is persisted
+		row.patient = toPatient(row);
+		return row;
+	}
+
+	private Patient toPatient(ImportRow row) {
+		final Patient patient = patientMapper.toPatient(row.dto);
+		if (row.registeredByInstitution) {
+			patient.setPatientStatus(EventType.SUSPECTED);
+		}
+		patient.assignNewId(row.id);
+		return patient;
+	}
+
+	private void persistChunk(List<ImportRow> chunk, PatientImportResultDTO result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		try {
+			transaction.executeWithoutResult(status -> persist(chunk));
+			chunk.forEach(row -> result.addCreated(row.index, row.id));
+		} catch (RuntimeException e) {
+			log.warn("importing {} patients failed, retrying row by row", chunk.size(), e);
+			for (ImportRow row : chunk) {
+				try {
+					// the patients of the rolled back transaction may be marked persisted and hold collections
+					// of the closed session, each attempt persists a new one
+					row.patient = toPatient(row);
+					transaction.executeWithoutResult(status -> persist(List.of(row)));
+					result.addCreated(row.index, row.id);
+				} catch (RuntimeException rowException) {
+					result.addFailed(row.index, rowException.getMessage());
+				}
+			}
+		}
+		chunk.clear();
+	}
+
+	private void persist(List<ImportRow> rows) {
+		final Map<ZipStatistic.Key, Long> zipCounts = new HashMap<>();
+		for (ImportRow row : rows) {
+			final Patient patient = row.patient;
+			final EventType eventType = patient.getPatientStatus();
+			// new ids are assigned, persist instead of save avoids a select per entity
+			entityManager.persist(patient);
+			entityManager.persist(eventService.newInitialPatientEvent(
+					patient, Optional.empty(), eventType, row.dateOfReporting));
+			entityManager.persist(incidentService.newIncident(
+					patient, Optional.empty(), eventType, row.dateOfReporting));
+			if (patient.getZip() != null) {
+				zipCounts.merge(new ZipStatistic.Key(patient.getZip(), eventType), 1L, Long::sum);
+			}
+		}
+		entityManager.flush();
+		zipCounts.forEach((key, count) -> zipStatisticService.addToPatientCount(key.getZip(), key.getEventType(), count));
+	}
+
+	@RequiredArgsConstructor
+	private static class ImportRow {
+		private final int index;
+		private final CreatePatientDTO dto;
+		private final boolean registeredByInstitution;
+		private final String id;
+		private final LocalDate dateOfReporting;
+		private Patient patient;
+	}
+}
@@ -1,76 +1,209 @@
 package de.coronavirus.imis.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
 import de.coronavirus.imis.domain.EventType;
 import de.coronavirus.imis.services.util.LikeOperatorService;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PatientQueryService {
 
+	private static final ObjectMapper mapper = new ObjectMapper();
+	// collection table and value column of the collections of the patient, see Patient
+	private static final Map<String, String[]> COLLECTION_TABLES = Map.of(
+			"symptoms", new String[]{"patient_symptom", "symptom"},
+			"riskAreas", new String[]{"patient_risk_area", "risk_area"},
+			"preIllnesses", new String[]{"patient_pre_illness", "pre_illness"});
+
 	private final LikeOperatorService likeOperatorService;
 	@PersistenceContext
 	private final EntityManager sessionFactory;
 
 	public <T> TypedQuery<T> getQuery(String sql, PatientSearchParamsDTO patientSearchParamsDTO, Class<T> returnClazz) {
-		String genderQueryString = "%";
-		// Cant surround gender with "%" like the other attributes (%male% matches female)
-		if (patientSearchParamsDTO.getGender() != null && !patientSearchParamsDTO.getGender().isBlank()) {
-			genderQueryString = patientSearchParamsDTO.getGender();
-		}
 		final TypedQuery<T> query = this.sessionFactory.createQuery(sql, returnClazz);
-		query.setParameter(1, likeOperatorService.like(patientSearchParamsDTO.getFirstName()));
-		query.setParameter(2, likeOperatorService.like(patientSearchParamsDTO.getLastName()));
-		query.setParameter(3, likeOperatorService.like(patientSearchParamsDTO.getId()));
-		query.setParameter(4, genderQueryString);
-		query.setParameter(5, likeOperatorService.like(patientSearchParamsDTO.getStreet()));
-		query.setParameter(6, likeOperatorService.like(patientSearchParamsDTO.getHouseNumber()));
-		query.setParameter(7, likeOperatorService.like(patientSearchParamsDTO.getZip()));
-		query.setParameter(8, likeOperatorService.like(patientSearchParamsDTO.getCity()));
-		query.setParameter(9, likeOperatorService.like(patientSearchParamsDTO.getInsuranceCompany()));
-		int positionParameter = 10;
-		if (patientSearchParamsDTO.getQuarantineStatus() != null && !patientSearchParamsDTO.getQuarantineStatus().isEmpty()) {
-			for (EventType quarantineStatus : patientSearchParamsDTO.getQuarantineStatus()) {
-				if (quarantineStatus != null) {
-					query.setParameter(positionParameter++, quarantineStatus.name());
-				}
-			}
+		final List<Object> parameters = new ArrayList<>();
+		appendFilters(patientSearchParamsDTO, new StringBuilder(), parameters, false);
+		for (int i = 0; i < parameters.size(); i++) {
+			query.setParameter(i + 1, parameters.get(i));
 		}
 		return query;
 	}
 
+	/**
+	 * Number of ordinal parameters used by {@link #getQueryPatientsSql(PatientSearchParamsDTO)}.
+	 */
+	public int getParameterCount(PatientSearchParamsDTO patientSearchParamsDTO) {
+		final List<Object> parameters = new ArrayList<>();
+		appendFilters(patientSearchParamsDTO, new StringBuilder(), parameters, false);
+		return parameters.size();
+	}
+
+	/**
+	 * Where clause for the alias "pat". Only the filters that are set are added, and none of them
+	 * joins another entity, so the result has exactly one row per patient. Filters on collections of
+	 * the patient are subqueries, which use the value indexes of the collection tables.
+	 */
 	public String getQueryPatientsSql(PatientSearchParamsDTO patientSearchParamsDTO) {
-		StringBuilder sql = new StringBuilder(
-				"left join PatientEvent pe on pe.patient = pat.id " +
-						"left join QuarantineIncident qi on qi.patient = pat " +
-						"where lower(pat.firstName) like lower(?1) " +
-						"AND lower(pat.lastName) like lower(?2) " +
-						"AND lower(pat.id) like lower(?3) " +
-						"AND lower(pat.gender) like lower(?4) " +
-						"AND lower(pat.street) like lower(?5) " +
-						"AND lower(pat.houseNumber) like lower(?6) " +
-						"AND lower(pat.zip) like lower(?7) " +
-						"AND lower(pat.city) like lower(?8) " +
-						"AND lower(pat.insuranceCompany) like lower(?9) "
-		);
-		int positionSql = 10;
-		if (patientSearchParamsDTO.getQuarantineStatus() != null && !patientSearchParamsDTO.getQuarantineStatus().isEmpty()) {
+		final StringBuilder sql = new StringBuilder("where 1=1 ");
+		appendFilters(patientSearchParamsDTO, sql, new ArrayList<>(), false);
+		return sql.toString();
+	}
+
+	/**
+	 * Where clause of {@link #getQueryPatientsSql(PatientSearchParamsDTO)} in SQL, for the table alias "pat".
+	 *
+	 * @param parameters filled with the value of each "?" of the clause, in order
+	 */
+	String getQueryPatientsNativeSql(PatientSearchParamsDTO patientSearchParamsDTO, List<Object> parameters) {
+		final StringBuilder sql = new StringBuilder("where 1=1 ");
+		appendFilters(patientSearchParamsDTO, sql, parameters, true);
+		return sql.toString();
+	}
+
+	/**
+	 * Number of patients matching the search as estimated by the query planner of PostgreSQL. The query
+	 * itself is not executed, so the estimate is cheap but can be off for narrow filters.
+	 *
+	 * @return estimate, empty if the database is not PostgreSQL
+	 */
+	@Transactional
+	public OptionalLong estimateCount(PatientSearchParamsDTO patientSearchParamsDTO) {
+		final List<Object> parameters = new ArrayList<>();
+		final String sql = "explain (format json) select pat.id from patient pat "
+				+ getQueryPatientsNativeSql(patientSearchParamsDTO, parameters);
+
+		return this.sessionFactory.unwrap(Session.class).doReturningWork(connection -> {
+			if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+				return OptionalLong.empty();
+			}
+			try (PreparedStatement statement = connection.prepareStatement(sql)) {
+				for (int i = 0; i < parameters.size(); i++) {
+					statement.setObject(i + 1, parameters.get(i));
+				}
+				try (ResultSet resultSet = statement.executeQuery()) {
+					resultSet.next();
+					return OptionalLong.of(mapper.readTree(resultSet.getString(1))
+							.path(0).path("Plan").path("Plan Rows").asLong());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Appends the filters that are set, in HQL for the entity or in SQL for its tables. In SQL every "?" gets
+	 * its own parameter, enums are bound by name as the entities store them.
+	 */
+	private void appendFilters(PatientSearchParamsDTO patientSearchParamsDTO, StringBuilder sql, List<Object> parameters,
+							   boolean nativeSql) {
+		appendLike(sql, parameters, "firstName", patientSearchParamsDTO.getFirstName(), nativeSql);
+		appendLike(sql, parameters, "lastName", patientSearchParamsDTO.getLastName(), nativeSql);
+		appendLike(sql, parameters, "id", patientSearchParamsDTO.getId(), nativeSql);
+		// Cant surround gender with "%" like the other attributes (%male% matches female)
+		if (patientSearchParamsDTO.getGender() != null && !patientSearchParamsDTO.getGender().isBlank()) {
+			parameters.add(patientSearchParamsDTO.getGender());
+			sql.append("AND lower(").append(column("gender", nativeSql)).append(") like lower(")
+					.append(placeholder(parameters, nativeSql)).append(") ");
+		}
+		appendLike(sql, parameters, "street", patientSearchParamsDTO.getStreet(), nativeSql);
+		appendLike(sql, parameters, "houseNumber", patientSearchParamsDTO.getHouseNumber(), nativeSql);
+		appendLike(sql, parameters, "zip", patientSearchParamsDTO.getZip(), nativeSql);
+		appendLike(sql, parameters, "city", patientSearchParamsDTO.getCity(), nativeSql);
+		appendLike(sql, parameters, "insuranceCompany", patientSearchParamsDTO.getInsuranceCompany(), nativeSql);
+
+		final List<EventType> quarantineStatus = patientSearchParamsDTO.getQuarantineStatus();
+		if (quarantineStatus != null && !quarantineStatus.isEmpty()) {
+			final List<EventType> eventTypes = quarantineStatus.stream()
+					.filter(Objects::nonNull)
+					.collect(Collectors.toList());
+			final String quarantineIncidents = nativeSql
+					? "select 1 from quarantine_incident qi where qi.patient_id = pat.id "
+					: "select qi from QuarantineIncident qi where qi.patient = pat ";
+			final String eventType = nativeSql ? "qi.event_type" : "qi.eventType";
 			sql.append("AND ( 1=0 ");
-			for (EventType quarantineStatus : patientSearchParamsDTO.getQuarantineStatus()) {
-				if (quarantineStatus != null) {
-					sql.append("OR lower(qi.eventType) = lower(?").append(positionSql++).append(") ");
-				} else {
-					sql.append("OR qi.eventType is null ");
+			if (!eventTypes.isEmpty()) {
+				sql.append("OR exists (").append(quarantineIncidents).append("and ").append(eventType).append(" in (");
+				for (int i = 0; i < eventTypes.size(); i++) {
+					parameters.add(nativeSql ? eventTypes.get(i).name() : eventTypes.get(i));
+					sql.append(i > 0 ? ", " : "").append(placeholder(parameters, nativeSql));
 				}
+				sql.append(")) ");
+			}
+			// null stands for patients without quarantine status
+			if (eventTypes.size() < quarantineStatus.size()) {
+				sql.append("OR not exists (").append(quarantineIncidents)
+						.append("and ").append(eventType).append(" is not null) ");
 			}
 			sql.append(" ) ");
 		}
-		return sql.toString();
+
+		appendContainsAny(sql, parameters, "symptoms", patientSearchParamsDTO.getSymptoms(), nativeSql);
+		appendContainsAny(sql, parameters, "riskAreas", patientSearchParamsDTO.getRiskAreas(), nativeSql);
+		appendContainsAny(sql, parameters, "preIllnesses", patientSearchParamsDTO.getPreIllnesses(), nativeSql);
+	}
+
+	private void appendContainsAny(StringBuilder sql, List<Object> parameters, String attribute, List<String> values,
+								   boolean nativeSql) {
+		if (values == null || values.stream().noneMatch(PatientQueryService::isSet)) {
+			return;
+		}
+		if (nativeSql) {
+			final String[] collectionTable = COLLECTION_TABLES.get(attribute);
+			sql.append("AND exists (select 1 from ").append(collectionTable[0]).append(" v where v.patient_id = pat.id and v.")
+					.append(collectionTable[1]).append(" in (");
+		} else {
+			sql.append("AND exists (select v from pat.").append(attribute).append(" v where v in (");
+		}
+		boolean first = true;
+		for (String value : values) {
+			if (isSet(value)) {
+				parameters.add(value);
+				sql.append(first ? "" : ", ").append(placeholder(parameters, nativeSql));
+				first = false;
+			}
+		}
+		sql.append(")) ");
+	}
+
+	private void appendLike(StringBuilder sql, List<Object> parameters, String attribute, String searchParam, boolean nativeSql) {
+		if (isSet(searchParam)) {
+			parameters.add(likeOperatorService.like(searchParam));
+			sql.append("AND lower(").append(column(attribute, nativeSql)).append(") like lower(")
+					.append(placeholder(parameters, nativeSql)).append(") ");
+		}
+	}
+
+	// column names as given by the naming strategy of Spring Boot
+	private static String column(String attribute, boolean nativeSql) {
+		return "pat." + (nativeSql ? attribute.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase() : attribute);
+	}
+
+	// the last added parameter, numbered in HQL
+	private static String placeholder(List<Object> parameters, boolean nativeSql) {
+		return nativeSql ? "?" : "?" + parameters.size();
+	}
+
+	private static boolean isSet(String searchParam) {
+		return searchParam != null && !searchParam.isEmpty();
 	}
 }
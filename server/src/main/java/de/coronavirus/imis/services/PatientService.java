@@ -1,16 +1,18 @@
 package de.coronavirus.imis.services;
 
-import com.google.common.hash.Hashing;
 import de.coronavirus.imis.api.dto.CreatePatientDTO;
 import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.api.dto.PatientSearchResultDTO;
 import de.coronavirus.imis.api.dto.PatientSimpleSearchParamsDTO;
 import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.config.SqlFunctionContributor;
 import de.coronavirus.imis.domain.EventType;
 import de.coronavirus.imis.domain.Patient;
 import de.coronavirus.imis.mapper.PatientMapper;
 import de.coronavirus.imis.repositories.PatientRepository;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -18,41 +20,42 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.TypedQuery;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import javax.transaction.Transactional;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class PatientService {
 
 	private final PatientRepository patientRepository;
 	private final PatientEventService eventService;
-	private final RandomService randomService;
+	private final PatientIdAllocator patientIdAllocator;
 	private final PatientMapper patientMapper;
 	private final IncidentService incidentService;
 	private final PatientQueryService patientQueryService;
+	private final ZipStatisticService zipStatisticService;
+	// Below this the estimate is too inaccurate and the exact count is cheap enough
+	@Value("${imis.patient-search.estimated-count-threshold:10000}")
+	private long estimatedCountThreshold;
 
 	public List<Patient> getAllPatients() {
 		var patients = patientRepository.findAll();
-		return patients.stream().peek(patient -> {
-			var lastEvent = eventService.findFirstByPatientOrderByEventTimestampDesc(patient);
-			patient.setEvents(List.of(lastEvent));
-		}).collect(Collectors.toList());
+		setLatestEvents(patients);
+		return patients;
 	}
 
 	public Optional<Patient> findPatientById(String id) {
 		return patientRepository.findById(id);
 	}
 
+	@Transactional
 	public Patient addPatient(CreatePatientDTO dto, boolean registeredByInstitution) {
 		var patient = patientMapper.toPatient(dto);
 		if (registeredByInstitution) {
@@ -63,21 +66,23 @@ public class PatientService {
 				patientMapper.parseDate(dto.getDateOfReporting()));
 	}
 
+	@Transactional
 	public Patient updatePatient(Patient patient) {
-		return this.patientRepository.saveAndFlush(patient);
+		zipStatisticService.lockPatient(patient.getId());
+		final String oldZip = patientRepository.findZipById(patient.getId()).orElse(null);
+		final Patient updated = this.patientRepository.saveAndFlush(patient);
+		if (oldZip == null ? updated.getZip() != null : !oldZip.equals(updated.getZip())) {
+			zipStatisticService.zipChanged(updated, oldZip);
+		}
+		return updated;
 	}
 
+	// One transaction, so the patient, its event and its incident are inserted with one flush
+	// and the patient is not merged again by each of them
+	@Transactional
 	public Patient addPatient(Patient patient, final LocalDate dateOfReporting) {
 		if (patient.getId() == null) {
-			var id = Hashing.sha256()
-					.hashString(patient.getFirstName() + patient.getLastName()
-							+ patient.getZip()
-							+ patient.getDateOfBirth()
-							+ randomService.getRandomString(12), StandardCharsets.UTF_8)
-					.toString()
-					.substring(0, 8).toUpperCase();
-
-			patient.setId(id);
+			patient.assignNewId(patientIdAllocator.nextId());
 		}
 
 		patient = patientRepository.save(patient);
@@ -113,58 +118,133 @@ public class PatientService {
 	}
 
 	private Specification<Patient> getSimpleQuerySpecification(String query) {
-		// each part of the query has to be in any of these attributes:
-		final List<String> attributes = Arrays.asList("firstName", "lastName", "id", "email", "phoneNumber", "city");
-		// "any" means we have to concatenate with "or"
-		final List<Specification<Patient>> specifications = Arrays.stream(query.split(" "))
+		// each part of the query has to be in any of the attributes covered by Patient.searchText
+		return Arrays.stream(query.split(" "))
+				.filter(queryPart -> !queryPart.isEmpty())
 				.map(queryPart -> Specification.<Patient>where((root, q, criteriaBuilder) ->
-						criteriaBuilder.or(
-								attributes.stream()
-										.map(attribute -> like(root, criteriaBuilder, attribute, queryPart))
-										.toArray(Predicate[]::new)
-						)
-				)).collect(Collectors.toList());
+						criteriaBuilder.like(root.get("searchText"), "%" + queryPart.toLowerCase() + "%")))
+				// These have to be joined together with "and"
+				.reduce(Specification.where(null), Specification::and);
+	}
+
+	public List<Patient> queryPatients(PatientSearchParamsDTO patientSearchParamsDTO) {
+		final List<Patient> patients = patientSearchParamsDTO.getAfter() != null
+				? queryPatientsAfter(patientSearchParamsDTO)
+				: createPageQuery(patientSearchParamsDTO, "pat", Patient.class, null).getResultList();
 
-		// Each Specification contains the filter for a single attribute
-		// These have to be joined together with "and"
-		return specifications.stream().skip(1)
-				.reduce(specifications.get(0), Specification::and);
+		if (patientSearchParamsDTO.isIncludePatientEvents()) {
+			setLatestEvents(patients);
+		}
+		return patients;
 	}
 
-	private Predicate like(Root<Patient> root, CriteriaBuilder criteriaBuilder, String propertyName, String query) {
-		return criteriaBuilder.like(criteriaBuilder.lower(root.get(propertyName)), "%" + query.toLowerCase() + "%");
+	/**
+	 * Page of the patient search together with the number of all matching patients. The count is
+	 * selected with the page, so the search runs only once.
+	 *
+	 * @param estimateCount use the estimate of the query planner if it exceeds imis.patient-search.estimated-count-threshold
+	 */
+	public PatientSearchResultDTO queryPatientsPage(PatientSearchParamsDTO patientSearchParamsDTO, boolean estimateCount) {
+		if (estimateCount) {
+			final OptionalLong estimate = this.patientQueryService.estimateCount(patientSearchParamsDTO);
+			if (estimate.isPresent() && estimate.getAsLong() >= estimatedCountThreshold) {
+				return getSearchResult(patientSearchParamsDTO, queryPatients(patientSearchParamsDTO), estimate.getAsLong(), true);
+			}
+		}
+		// The window function counts the rows before limit and offset, but after the keyset predicate
+		if (patientSearchParamsDTO.getAfter() != null) {
+			return getSearchResult(patientSearchParamsDTO, queryPatients(patientSearchParamsDTO),
+					countQueryPatients(patientSearchParamsDTO), false);
+		}
+
+		final List<Object[]> rows = createPageQuery(patientSearchParamsDTO,
+				"pat, " + SqlFunctionContributor.COUNT_OVER + "()", Object[].class, null).getResultList();
+		final List<Patient> patients = rows.stream()
+				.map(row -> (Patient) row[0])
+				.collect(Collectors.toList());
+		if (patientSearchParamsDTO.isIncludePatientEvents()) {
+			setLatestEvents(patients);
+		}
+		// An offset behind the last patient returns no row to read the count from
+		final long count = rows.isEmpty() ? countQueryPatients(patientSearchParamsDTO) : (Long) rows.get(0)[1];
+		return getSearchResult(patientSearchParamsDTO, patients, count, false);
 	}
 
-	public List<Patient> queryPatients(PatientSearchParamsDTO patientSearchParamsDTO) {
-		final String orderBy;
-		if (patientSearchParamsDTO.getOrderBy() == null || patientSearchParamsDTO.getOrderBy().isEmpty()) {
-			orderBy = "id";
-		} else {
-			orderBy = patientSearchParamsDTO.getOrderBy();
+	private PatientSearchResultDTO getSearchResult(PatientSearchParamsDTO patientSearchParamsDTO, List<Patient> patients,
+												   long count, boolean countEstimated) {
+		return new PatientSearchResultDTO(patients, count, countEstimated,
+				getNextPageToken(patientSearchParamsDTO, patients).orElse(null));
+	}
+
+	/**
+	 * Reads the page after the page token from the ranges of the cursor, see {@link PatientCursor#getSeeks}.
+	 */
+	private List<Patient> queryPatientsAfter(PatientSearchParamsDTO patientSearchParamsDTO) {
+		final String orderBy = PatientCursor.resolveOrderBy(patientSearchParamsDTO.getOrderBy());
+		final Sort.Direction direction = PatientCursor.resolveDirection(patientSearchParamsDTO.getOrder());
+		final PatientCursor after = PatientCursor.decode(patientSearchParamsDTO.getAfter(), orderBy, direction);
+		final int keysetPosition = this.patientQueryService.getParameterCount(patientSearchParamsDTO) + 1;
+
+		final List<Patient> patients = new ArrayList<>();
+		for (PatientCursor.Seek seek : after.getSeeks("pat", keysetPosition)) {
+			final int remaining = patientSearchParamsDTO.getPageSize().intValue() - patients.size();
+			if (remaining <= 0) {
+				break;
+			}
+			final TypedQuery<Patient> query = createPageQuery(patientSearchParamsDTO, "pat", Patient.class, seek);
+			for (int i = 0; i < seek.getParameters().length; i++) {
+				query.setParameter(keysetPosition + i, seek.getParameters()[i]);
+			}
+			patients.addAll(query.setMaxResults(remaining).getResultList());
 		}
-		final String sortOrder = patientSearchParamsDTO.getOrder() != null && !patientSearchParamsDTO.getOrder().isEmpty()
-				? patientSearchParamsDTO.getOrder() : "ASC";
+		return patients;
+	}
+
+	/**
+	 * @param seek range after the page token, the offset of the search is used without
+	 */
+	private <T> TypedQuery<T> createPageQuery(PatientSearchParamsDTO patientSearchParamsDTO, String select, Class<T> resultClass,
+											  PatientCursor.Seek seek) {
+		final String orderBy = PatientCursor.resolveOrderBy(patientSearchParamsDTO.getOrderBy());
+		final Sort.Direction direction = PatientCursor.resolveDirection(patientSearchParamsDTO.getOrder());
 
 		final String sql =
-				"select distinct pat from Patient pat "
+				"select " + select + " from Patient pat "
 						+ this.patientQueryService.getQueryPatientsSql(patientSearchParamsDTO)
-						+ " order by pat." + orderBy + " " + sortOrder;
-		final TypedQuery<Patient> query = this.patientQueryService.getQuery(sql, patientSearchParamsDTO, Patient.class);
-		query.setFirstResult(patientSearchParamsDTO.getOffsetPage().intValue());
+						+ (seek != null ? seek.getSql() : "")
+						+ " order by " + PatientCursor.getOrderSql("pat", orderBy, direction);
+		final TypedQuery<T> query = this.patientQueryService.getQuery(sql, patientSearchParamsDTO, resultClass);
+		if (seek == null) {
+			query.setFirstResult(patientSearchParamsDTO.getOffsetPage().intValue());
+		}
 		query.setMaxResults(patientSearchParamsDTO.getPageSize().intValue());
-		final List<Patient> patients = query.getResultList();
+		return query;
+	}
 
-		if (patientSearchParamsDTO.isIncludePatientEvents()) {
-			patients.forEach(patient -> {
-				var lastEvent = eventService.findFirstByPatientOrderByEventTimestampDesc(patient);
-				patient.setEvents(List.of(lastEvent));
-			});
+	/**
+	 * Token to request the page following the given page with {@link PatientSearchParamsDTO#setAfter(String)}.
+	 *
+	 * @return token, empty if the page is the last one
+	 */
+	public Optional<String> getNextPageToken(PatientSearchParamsDTO patientSearchParamsDTO, List<Patient> page) {
+		if (page.size() < patientSearchParamsDTO.getPageSize()) {
+			return Optional.empty();
 		}
-		return patients;
+		final String orderBy = PatientCursor.resolveOrderBy(patientSearchParamsDTO.getOrderBy());
+		final Sort.Direction direction = PatientCursor.resolveDirection(patientSearchParamsDTO.getOrder());
+		return Optional.of(PatientCursor.after(page.get(page.size() - 1), orderBy, direction).encode());
+	}
+
+	private void setLatestEvents(List<Patient> patients) {
+		final var latestEvents = eventService.findLatestEventsByPatient(patients);
+		patients.forEach(patient -> {
+			var lastEvent = latestEvents.get(patient.getId());
+			patient.setEvents(lastEvent != null ? List.of(lastEvent) : List.of());
+		});
 	}
 
 	public Long countQueryPatients(PatientSearchParamsDTO patientSearchParamsDTO) {
-		String sql = "select count(distinct pat) from Patient pat " + this.patientQueryService.getQueryPatientsSql(patientSearchParamsDTO);
+		String sql = "select count(pat) from Patient pat " + this.patientQueryService.getQueryPatientsSql(patientSearchParamsDTO);
 		return this.patientQueryService.getQuery(sql, patientSearchParamsDTO, Long.class).getSingleResult();
 	}
 
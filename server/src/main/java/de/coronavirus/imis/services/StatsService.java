@@ -1,38 +1,73 @@
 package de.coronavirus.imis.services;
 
 import de.coronavirus.imis.api.dto.AggregationResultZip;
-import de.coronavirus.imis.domain.Patient;
-import de.coronavirus.imis.repositories.PatientEventRepository;
-import de.coronavirus.imis.repositories.PatientRepository;
+import de.coronavirus.imis.api.dto.ZipStatisticsRebuildDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.ZipStatistic;
+import de.coronavirus.imis.repositories.ZipStatisticRepository;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.tuple.ImmutablePair;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class StatsService {
-	private final PatientRepository patientRepository;
-	private final PatientEventRepository patientEventRepository;
+	private final ZipStatisticRepository zipStatisticRepository;
 
 	@Transactional(readOnly = true)
 	public List<AggregationResultZip> resultZipList(String lowerBounds, String upperBounds) {
-		final List<Patient> patientIds = patientRepository.
-				findAllByZipBetween(lowerBounds, upperBounds);
-		var events = patientIds.stream().map(patient ->
-				ImmutablePair.of(patient.getZip(), patientEventRepository.findFirstByPatientOrderByEventTimestampDesc(patient)))
+		return zipStatisticRepository.findAllByZipBetween(lowerBounds, upperBounds).stream()
+				.map(stat -> new AggregationResultZip()
+						.Zip(stat.getZip())
+						.eventType(stat.getEventType().name())
+						.patientCount(stat.getPatientCount()))
 				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Recomputes the zip statistic from the patient events and compares the result with the statistic
+	 * maintained with each event.
+	 *
+	 * @return number of rows written and the buckets in which both differ
+	 */
+	@Transactional
+	public ZipStatisticsRebuildDTO rebuildZipStatistics() {
+		// read as values, the rebuilt buckets have the same ids
+		final Map<ZipStatistic.Key, Long> maintained = zipStatisticRepository.findAllCounts().stream()
+				.collect(Collectors.toMap(row -> new ZipStatistic.Key((String) row[0], (EventType) row[1]), row -> (Long) row[2]));
+		final List<ZipStatistic> rebuilt = zipStatisticRepository.computeFromPatientEvents().stream()
+				.map(row -> new ZipStatistic((String) row[0], (EventType) row[1], (Long) row[2]))
+				.collect(Collectors.toList());
+		zipStatisticRepository.deleteAllInBatch();
+		zipStatisticRepository.saveAll(rebuilt);
+
+		final Map<ZipStatistic.Key, Long> stored = rebuilt.stream()
+				.collect(Collectors.toMap(ZipStatistic::getId, ZipStatistic::getPatientCount));
 
-		final Map<AggregationResultZip, Long> aggregated = events.stream().collect(
-				Collectors.groupingBy(el ->
-								new AggregationResultZip().Zip(el.getLeft()).eventType(el.right.getEventType().name()),
-						Collectors.counting()));
-		return aggregated.entrySet().stream().map(el -> el.getKey()
-				.patientCount(el.getValue())).collect(Collectors.toList());
+		final Set<ZipStatistic.Key> keys = new HashSet<>(stored.keySet());
+		keys.addAll(maintained.keySet());
+		final List<String> mismatches = new ArrayList<>();
+		for (ZipStatistic.Key key : keys) {
+			final long storedCount = stored.getOrDefault(key, 0L);
+			final long maintainedCount = maintained.getOrDefault(key, 0L);
+			if (storedCount != maintainedCount) {
+				mismatches.add(String.format("%s/%s: rebuilt %d, maintained %d",
+						key.getZip(), key.getEventType(), storedCount, maintainedCount));
+			}
+		}
+		if (!mismatches.isEmpty()) {
+			log.warn("zip statistic differs from the rebuilt statistic: {}", mismatches);
+		}
+		return new ZipStatisticsRebuildDTO(rebuilt.size(), mismatches);
 	}
 
 }
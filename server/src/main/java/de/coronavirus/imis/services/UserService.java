@@ -1,6 +1,7 @@
 package de.coronavirus.imis.services;
 
 import de.coronavirus.imis.api.dto.UserDTO;
+import de.coronavirus.imis.config.CustomerUserDetailService;
 import de.coronavirus.imis.config.domain.User;
 import de.coronavirus.imis.config.domain.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +16,7 @@ public class UserService {
 
 	private final UserRepository userRepository;
 	private final AuthService authService;
+	private final CustomerUserDetailService userDetailService;
 
 	public List<User> getUsersForCurrentInstitution() {
 		return this.userRepository.getAllByInstitution_Id(authService.getCurrentUser().getInstitutionId());
@@ -24,14 +26,22 @@ public class UserService {
 		final User user = this.userRepository
 				.findById(userDTO.getId())
 				.orElseThrow(() -> new UsernameNotFoundException("User with id " + userDTO.getId() + " does not exist."));
+		final String oldUsername = user.getUsername();
 		user.firstName(userDTO.getFirstName());
 		user.lastName(userDTO.getLastName());
 		user.username(userDTO.getUsername());
 		user.userRole(userDTO.getUserRole());
-		return this.userRepository.saveAndFlush(user);
+		final User updated = this.userRepository.saveAndFlush(user);
+		userDetailService.evict(oldUsername);
+		userDetailService.evict(updated.getUsername());
+		return updated;
 	}
 
 	public void deleteInstitutionUser(Long id) {
-		this.userRepository.deleteById(id);
+		final User user = this.userRepository
+				.findById(id)
+				.orElseThrow(() -> new UsernameNotFoundException("User with id " + id + " does not exist."));
+		this.userRepository.delete(user);
+		userDetailService.evict(user.getUsername());
 	}
 }
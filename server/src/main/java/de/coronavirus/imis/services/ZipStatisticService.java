@@ -0,0 +1,126 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.ZipStatistic;
+import de.coronavirus.imis.repositories.PatientEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL95Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
+import javax.transaction.Transactional;
+import java.util.Comparator;
+
+/**
+ * Keeps the {@link ZipStatistic} table in sync with the latest event of each patient.
+ * Callers are expected to run in the transaction that writes the patient or event.
+ */
+@Service
+@RequiredArgsConstructor
+public class ZipStatisticService {
+
+	private static final Comparator<ZipStatistic.Key> BUCKET_ORDER = Comparator.comparing(ZipStatistic.Key::getZip)
+			.thenComparing(ZipStatistic.Key::getEventType);
+
+	// PostgreSQL 9.5 and later
+	private static final String INSERT_ON_CONFLICT = "insert into zip_statistic (zip, event_type, patient_count) "
+			+ "values (?1, ?2, ?3) "
+			+ "on conflict (zip, event_type) do update set patient_count = zip_statistic.patient_count + excluded.patient_count";
+	// H2 of the tests, which unlike PostgreSQL may still fail on a bucket created concurrently
+	private static final String MERGE = "merge into zip_statistic stat "
+			+ "using (select cast(?1 as varchar) zip, cast(?2 as varchar) event_type, cast(?3 as bigint) patient_count) delta "
+			+ "on stat.zip = delta.zip and stat.event_type = delta.event_type "
+			+ "when matched then update set patient_count = stat.patient_count + delta.patient_count "
+			+ "when not matched then insert (zip, event_type, patient_count) values (delta.zip, delta.event_type, delta.patient_count)";
+
+	private final PatientEventRepository patientEventRepository;
+	private final EntityManager entityManager;
+	private final EntityManagerFactory entityManagerFactory;
+
+	private String upsertSql;
+
+	@PostConstruct
+	void init() {
+		final Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		upsertSql = dialect instanceof PostgreSQL95Dialect ? INSERT_ON_CONFLICT : MERGE;
+	}
+
+	/**
+	 * Locks the patient until the end of the transaction, so changes of its latest event or its zip
+	 * are counted one after another. Has to be called before the latest event is read.
+	 */
+	@Transactional
+	public void lockPatient(String patientId) {
+		// unlike a query, this does not flush the changes made so far
+		entityManager.find(Patient.class, patientId, LockModeType.PESSIMISTIC_WRITE);
+	}
+
+	/**
+	 * Moves a patient whose zip has changed to the bucket of the new zip. The patient has to be locked,
+	 * see {@link #lockPatient(String)}.
+	 *
+	 * @param patient patient with the new zip
+	 * @param oldZip  zip before the update
+	 */
+	@Transactional
+	public void zipChanged(Patient patient, String oldZip) {
+		var latestEvent = patientEventRepository.findFirstByPatientOrderByEventTimestampDescIdDesc(patient);
+		if (latestEvent != null) {
+			movePatient(oldZip, latestEvent.getEventType(), patient.getZip(), latestEvent.getEventType());
+		}
+	}
+
+	/**
+	 * Moves a patient from one bucket of the statistic to another.
+	 *
+	 * @param oldZip          zip the patient was counted for, null if not counted yet
+	 * @param oldEventType    event type the patient was counted for, null if not counted yet
+	 * @param newZip          zip the patient is counted for from now on
+	 * @param newEventType    event type the patient is counted for from now on
+	 */
+	@Transactional
+	public void movePatient(String oldZip, EventType oldEventType, String newZip, EventType newEventType) {
+		if (oldEventType == newEventType && (oldZip == null ? newZip == null : oldZip.equals(newZip))) {
+			return;
+		}
+		final boolean counted = oldZip != null && oldEventType != null;
+		final boolean counting = newZip != null && newEventType != null;
+		// Changing the buckets in the order of their keys keeps two opposite moves from locking each other
+		if (counted && counting && BUCKET_ORDER.compare(new ZipStatistic.Key(newZip, newEventType),
+				new ZipStatistic.Key(oldZip, oldEventType)) < 0) {
+			addToPatientCount(newZip, newEventType, 1);
+			addToPatientCount(oldZip, oldEventType, -1);
+		} else {
+			if (counted) {
+				addToPatientCount(oldZip, oldEventType, -1);
+			}
+			if (counting) {
+				addToPatientCount(newZip, newEventType, 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds to the number of patients counted for a zip and event type. A single statement creates the
+	 * bucket or adds to it, so concurrent transactions neither lose an update nor both create the bucket.
+	 *
+	 * @param delta number of patients to add, negative to remove patients
+	 */
+	@Transactional
+	public void addToPatientCount(String zip, EventType eventType, long delta) {
+		entityManager.createNativeQuery(upsertSql)
+				.setParameter(1, zip)
+				.setParameter(2, eventType.name())
+				.setParameter(3, delta)
+				// the statement only touches the statistic, pending changes are flushed at the end as usual
+				.setFlushMode(FlushModeType.COMMIT)
+				.executeUpdate();
+	}
+}
@@ -0,0 +1,40 @@
+-- Executed by Spring after Hibernate has created the schema (spring.datasource.platform=postgres).
+-- Statements have to be idempotent, they run on every start.
+
+-- Trigram index for the simple patient search (lower case "like '%term%'" on patient.search_text)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS patient_search_text_trgm_idx ON patient USING gin (search_text gin_trgm_ops);
+
+-- Rows written before search_text existed (only found once the schema is kept between starts, see README)
+UPDATE patient
+SET search_text = lower(concat_ws(' ', first_name, last_name, id, email, phone_number, city))
+WHERE search_text IS NULL;
+
+-- Incident timeline (IncidentService.getTimeline), latest revisions of a patient per incident type
+CREATE INDEX IF NOT EXISTS test_incident_aud_patient_timeline_idx ON test_incident_aud (patient_id, version_timestamp);
+CREATE INDEX IF NOT EXISTS quarantine_incident_aud_patient_timeline_idx ON quarantine_incident_aud (patient_id, version_timestamp);
+CREATE INDEX IF NOT EXISTS administrative_incident_aud_patient_timeline_idx ON administrative_incident_aud (patient_id, version_timestamp);
+
+-- Incidents as of a point in time (IncidentService.getAsOf) with the validity audit strategy
+CREATE INDEX IF NOT EXISTS revinfo_revtstmp_idx ON revinfo (revtstmp);
+CREATE INDEX IF NOT EXISTS test_incident_aud_patient_validity_idx ON test_incident_aud (patient_id, rev, revend);
+CREATE INDEX IF NOT EXISTS quarantine_incident_aud_patient_validity_idx ON quarantine_incident_aud (patient_id, rev, revend);
+CREATE INDEX IF NOT EXISTS administrative_incident_aud_patient_validity_idx ON administrative_incident_aud (patient_id, rev, revend);
+
+-- Audit rows written before the validity audit strategy: end each row with the next revision of its incident
+-- (only found once the schema is kept between starts, see README)
+UPDATE test_incident_aud aud
+SET revend = later.next_rev, revend_tstmp = to_timestamp(revinfo.revtstmp / 1000.0)
+FROM (SELECT id, rev, lead(rev) OVER (PARTITION BY id ORDER BY rev) AS next_rev FROM test_incident_aud) later
+         JOIN revinfo ON revinfo.rev = later.next_rev
+WHERE aud.id = later.id AND aud.rev = later.rev AND aud.revend IS NULL;
+UPDATE quarantine_incident_aud aud
+SET revend = later.next_rev, revend_tstmp = to_timestamp(revinfo.revtstmp / 1000.0)
+FROM (SELECT id, rev, lead(rev) OVER (PARTITION BY id ORDER BY rev) AS next_rev FROM quarantine_incident_aud) later
+         JOIN revinfo ON revinfo.rev = later.next_rev
+WHERE aud.id = later.id AND aud.rev = later.rev AND aud.revend IS NULL;
+UPDATE administrative_incident_aud aud
+SET revend = later.next_rev, revend_tstmp = to_timestamp(revinfo.revtstmp / 1000.0)
+FROM (SELECT id, rev, lead(rev) OVER (PARTITION BY id ORDER BY rev) AS next_rev FROM administrative_incident_aud) later
+         JOIN revinfo ON revinfo.rev = later.next_rev
+WHERE aud.id = later.id AND aud.rev = later.rev AND aud.revend IS NULL;
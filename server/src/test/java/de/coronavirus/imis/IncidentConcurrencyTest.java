@@ -0,0 +1,112 @@
+package de.coronavirus.imis;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.coronavirus.imis.api.dto.AuthRequestDTO;
+import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.api.dto.TokenDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.services.IncidentService;
+import de.coronavirus.imis.services.PatientService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IncidentConcurrencyTest {
+	private static final int THREADS = 16;
+	private static final int REQUESTS_PER_THREAD = 20;
+
+	@Autowired
+	MockMvc mockMvc;
+	@Autowired
+	ObjectMapper mapper;
+	@Autowired
+	PatientService patientService;
+	@Autowired
+	IncidentService incidentService;
+
+	@Test
+	public void testIncidentEndpointsFromManyThreads() throws Exception {
+		List<String> patientIds = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			var patient = patientService.addPatient(new Patient()
+					.setFirstName("Nebenläufig")
+					.setLastName(String.valueOf(i))
+					.setPatientStatus(EventType.SUSPECTED), LocalDate.of(2020, 4, 1));
+			for (int j = 0; j <= i; j++) {
+				incidentService.addOrUpdateIncident(patient.getId(), RequestQuarantineDTO.builder()
+						.dateUntil("2020-05-1" + j)
+						.status(EventType.QUARANTINE_MANDATED)
+						.build());
+			}
+			patientIds.add(patient.getId());
+		}
+		String authorization = "Bearer " + getTokenForUser("test_doctor", "asdf").getJwtToken();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				final int offset = thread;
+				results.add(executor.submit((Callable<Void>) () -> {
+					for (int request = 0; request < REQUESTS_PER_THREAD; request++) {
+						int patient = (offset + request) % patientIds.size();
+						String patientId = patientIds.get(patient);
+						// one administrative incident plus one quarantine incident, with a revision per update
+						Assertions.assertThat(getIncidents("/api/incidents/patient/" + patientId, authorization))
+								.isEqualTo(2);
+						Assertions.assertThat(getIncidents("/api/incidents/patient/" + patientId + "/log", authorization))
+								.isEqualTo(2 + patient);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private int getIncidents(String path, String authorization) throws Exception {
+		String response = mockMvc.perform(get(path)
+				.accept(MediaType.APPLICATION_JSON).header("Authorization", authorization))
+				.andExpect(status().is2xxSuccessful())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readTree(response).size();
+	}
+
+	private TokenDTO getTokenForUser(String username, String password) throws Exception {
+		var dto = new AuthRequestDTO();
+		dto.setPassword(password);
+		dto.setUsername(username);
+
+		var result = mockMvc.perform(post("/api/auth")
+				.content(mapper.writeValueAsString(dto))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.ALL)).andExpect(status().is2xxSuccessful())
+				.andReturn().getResponse().getContentAsString();
+		return mapper.readValue(result, TokenDTO.class);
+	}
+}
@@ -0,0 +1,47 @@
+package de.coronavirus.imis;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PatientAttributeMigrationTest {
+
+	@Autowired
+	private PatientAttributeMigration migration;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from patient_symptom where patient_id like 'migration-%'");
+		jdbcTemplate.update("delete from patient where id like 'migration-%'");
+		jdbcTemplate.execute("alter table patient drop column if exists symptoms");
+	}
+
+	@Test
+	void movesSymptomsToCollectionTable() {
+		// column of databases created before the collection tables
+		jdbcTemplate.execute("alter table patient add column symptoms varchar(255)");
+		jdbcTemplate.update("insert into patient (id, confirmed, patient_status, symptoms) values ('migration-1', false, 'SUSPECTED', 'Husten;Fieber;Husten')");
+		jdbcTemplate.update("insert into patient (id, confirmed, patient_status, symptoms) values ('migration-2', false, 'SUSPECTED', '')");
+
+		migration.migrate("symptoms", "patient_symptom", "symptom");
+
+		assertThat(jdbcTemplate.queryForList("select symptom from patient_symptom where patient_id = 'migration-1'", String.class))
+				.containsExactlyInAnyOrder("Husten", "Fieber");
+		assertThat(jdbcTemplate.queryForObject("select count(*) from patient_symptom where patient_id = 'migration-2'", Integer.class))
+				.isZero();
+		assertThat(jdbcTemplate.queryForObject("select count(*) from patient where symptoms is not null", Integer.class))
+				.isZero();
+	}
+
+	@Test
+	void skipsDatabasesWithoutFormerColumns() {
+		migration.migrate("symptoms", "patient_symptom", "symptom");
+	}
+}
@@ -0,0 +1,68 @@
+package de.coronavirus.imis;
+
+import de.coronavirus.imis.services.BlobStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class ReportBlobMigrationTest {
+
+	@Autowired
+	private ReportBlobMigration migration;
+	@Autowired
+	private BlobStore blobStore;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from lab_test where id like 'migration-%'");
+		jdbcTemplate.execute("alter table lab_test drop column if exists report");
+	}
+
+	@Test
+	void movesReportsToBlobStore() throws IOException {
+		// column of databases created before the blob store
+		jdbcTemplate.execute("alter table lab_test add column report varbinary");
+		final byte[] report = "PDF".getBytes(StandardCharsets.UTF_8);
+		for (String id : List.of("migration-1", "migration-2")) {
+			jdbcTemplate.update("insert into lab_test (id, test_id, report) values (?, ?, ?)", id, id, report);
+		}
+
+		migration.migrate("lab_test", List.of("id"));
+
+		final List<String> hashes = jdbcTemplate.queryForList(
+				"select report_hash from lab_test where id like 'migration-%' and report is null", String.class);
+		assertThat(hashes).hasSize(2).containsOnly(hashes.get(0));
+		try (InputStream stored = blobStore.get(hashes.get(0)).orElseThrow()) {
+			assertThat(stored.readAllBytes()).isEqualTo(report);
+		}
+	}
+
+	@Test
+	void skipsTablesWithoutReportColumn() throws IOException {
+		final JdbcTemplate jdbcTemplate = spy(this.jdbcTemplate);
+		final BlobStore blobStore = mock(BlobStore.class);
+
+		new ReportBlobMigration(jdbcTemplate, blobStore).migrate("lab_test", List.of("id"));
+
+		verify(blobStore, never()).put(any());
+		verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+	}
+}
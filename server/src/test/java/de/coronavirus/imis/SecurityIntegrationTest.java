@@ -5,6 +5,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.charset.StandardCharsets;
+
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,6 +70,33 @@ public class SecurityIntegrationTest {
 				.andExpect(status().is2xxSuccessful());
 	}
 
+	@Test
+	public void testBlobsRestrictedToRolesOfLabReports() throws Exception {
+		final String labToken = "Bearer " + getTokenForUser("test_lab", "asdf").getJwtToken();
+		final String doctorToken = "Bearer " + getTokenForUser("test_doctor", "asdf").getJwtToken();
+		final String hash = mapper.readTree(mockMvc.perform(post("/api/blobs")
+				.content("PDF".getBytes(StandardCharsets.UTF_8))
+				.header("Authorization", labToken))
+				.andExpect(status().is2xxSuccessful())
+				.andReturn().getResponse().getContentAsString()).get("hash").asText();
+
+		mockMvc.perform(get("/api/blobs/" + hash).header("Authorization", labToken))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/blobs/" + hash).header("Authorization", doctorToken))
+				.andExpect(status().is2xxSuccessful());
+		mockMvc.perform(post("/api/blobs").content(new byte[1]).header("Authorization", doctorToken))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	public void testBlobUploadLimitedInSize() throws Exception {
+		final String labToken = "Bearer " + getTokenForUser("test_lab", "asdf").getJwtToken();
+		mockMvc.perform(post("/api/blobs")
+				.content(new byte[10 * 1024 * 1024 + 1])
+				.header("Authorization", labToken))
+				.andExpect(status().isPayloadTooLarge());
+	}
+
 	private TokenDTO getTokenForUser(String username, String password) throws Exception {
 		var dto = new AuthRequestDTO();
 		dto.setPassword(password);
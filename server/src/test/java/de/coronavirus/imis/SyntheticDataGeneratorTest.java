@@ -0,0 +1,112 @@
+package de.coronavirus.imis;
+
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.QuarantineIncident;
+import de.coronavirus.imis.services.IncidentService;
+import de.coronavirus.imis.services.PatientService;
+import de.coronavirus.imis.services.StatsService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SyntheticDataGeneratorTest {
+
+	private static final int PATIENTS = 1000;
+	private static final LocalDate REFERENCE_DATE = LocalDate.of(2020, 4, 30);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private StatsService statsService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private IncidentService incidentService;
+
+	@AfterEach
+	void tearDown() {
+		deleteGenerated();
+	}
+
+	@Test
+	void generatesConsistentAndReproducibleData() {
+		// starts from the statistic of the patients other tests added
+		statsService.rebuildZipStatistics();
+		generator().generate(PATIENTS, 300, 4);
+
+		assertThat(count("select count(*) from patient where id like 'SYN%'")).isEqualTo(PATIENTS);
+		assertThat(count("select count(*) from lab_test where test_id like 'SYN-%'")).isPositive();
+		assertThat(count("select count(*) from quarantine_incident where patient_id like 'SYN%'")).isPositive();
+		assertThat(count("select count(*) from exposure_contact where source_id like 'SYN%'")).isPositive();
+		assertThat(count("select count(*) from patient_symptom where patient_id like 'SYN%'")).isPositive();
+		// the generator maintains the statistic itself
+		final List<Map<String, Object>> zipStatistic = zipStatistic();
+		assertThat(statsService.rebuildZipStatistics().getMismatches()).isEmpty();
+		assertThat(zipStatistic()).isEqualTo(zipStatistic);
+
+		final PatientSearchParamsDTO search = new PatientSearchParamsDTO();
+		search.setCity("Berlin");
+		assertThat(patientService.countQueryPatients(search)).isBetween(PATIENTS / 10L, PATIENTS / 2L);
+
+		final List<Map<String, Object>> generated = snapshot();
+		deleteGenerated();
+		generator().generate(PATIENTS, PATIENTS, 1);
+		assertThat(snapshot()).isEqualTo(generated);
+
+		// generated incidents have the audit row the validity audit strategy ends on updates
+		final String quarantined = jdbcTemplate.queryForObject(
+				"select min(patient_id) from quarantine_incident where patient_id like 'SYN%'", String.class);
+		incidentService.updateQuarantineIncident(quarantined, EventType.QUARANTINE_RELEASED, null);
+		assertThat(incidentService.getLog(QuarantineIncident.class, quarantined, true)).hasSize(2);
+	}
+
+	private SyntheticDataGenerator generator() {
+		final var dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		return new SyntheticDataGenerator(jdbcTemplate, dialect, 7, REFERENCE_DATE, 60);
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private List<Map<String, Object>> zipStatistic() {
+		return jdbcTemplate.queryForList("select * from zip_statistic where patient_count > 0 order by zip, event_type");
+	}
+
+	private List<Map<String, Object>> snapshot() {
+		return jdbcTemplate.queryForList("select p.id, p.first_name, p.last_name, p.zip, p.city, p.date_of_birth, "
+				+ "p.patient_status, pe.id as event_id, pe.event_type, pe.event_timestamp, pe.lab_test_id, "
+				+ "(select count(*) from exposure_contact ec where ec.source_id = p.id) as contacts, "
+				+ "(select count(*) from patient_symptom ps where ps.patient_id = p.id) as symptoms "
+				+ "from patient p join patient_event pe on pe.patient_id = p.id "
+				+ "where p.id like 'SYN%' order by p.id, pe.event_timestamp");
+	}
+
+	private void deleteGenerated() {
+		jdbcTemplate.update("delete from exposure_contact where source_id like 'SYN%'");
+		jdbcTemplate.update("delete from infection_source where contact_id like 'SYN%'");
+		jdbcTemplate.update("delete from quarantine_incident_aud where patient_id like 'SYN%'");
+		jdbcTemplate.update("delete from quarantine_incident where patient_id like 'SYN%'");
+		jdbcTemplate.update("delete from patient_event where patient_id like 'SYN%'");
+		jdbcTemplate.update("delete from lab_test where test_id like 'SYN-%'");
+		jdbcTemplate.update("delete from patient_symptom where patient_id like 'SYN%'");
+		jdbcTemplate.update("delete from patient_risk_area where patient_id like 'SYN%'");
+		jdbcTemplate.update("delete from patient_pre_illness where patient_id like 'SYN%'");
+		jdbcTemplate.update("delete from patient where id like 'SYN%'");
+		statsService.rebuildZipStatistics();
+	}
+}
@@ -0,0 +1,96 @@
+package de.coronavirus.imis.config;
+
+import de.coronavirus.imis.config.domain.User;
+import de.coronavirus.imis.config.domain.UserRepository;
+import de.coronavirus.imis.config.domain.UserRole;
+import de.coronavirus.imis.domain.Laboratory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerUserDetailServiceTest {
+
+	private UserRepository userRepository;
+	private CustomerUserDetailService userDetailService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = Mockito.mock(UserRepository.class);
+		userDetailService = new CustomerUserDetailService(userRepository);
+		ReflectionTestUtils.setField(userDetailService, "expireInMilliseconds", 60_000L);
+		ReflectionTestUtils.setField(userDetailService, "maxSize", 100L);
+		userDetailService.init();
+	}
+
+	@Test
+	void loadsUserOnceUntilEvicted() {
+		final User user = user("test_lab", "lab-1");
+		Mockito.when(userRepository.findByUsername("test_lab")).thenReturn(Optional.of(user));
+
+		final UserPrincipal principal = userDetailService.loadUserByUsername("test_lab");
+		assertThat(userDetailService.loadUserByUsername("test_lab")).isSameAs(principal);
+		Mockito.verify(userRepository, Mockito.times(1)).findByUsername("test_lab");
+
+		userDetailService.evict("test_lab");
+		userDetailService.loadUserByUsername("test_lab");
+		Mockito.verify(userRepository, Mockito.times(2)).findByUsername("test_lab");
+	}
+
+	@Test
+	void cachesSnapshotOfUser() {
+		final User user = user("test_lab", "lab-1");
+		Mockito.when(userRepository.findByUsername("test_lab")).thenReturn(Optional.of(user));
+
+		final UserPrincipal principal = userDetailService.loadUserByUsername("test_lab");
+		user.setPassword("changed");
+		user.setUserRole(UserRole.USER_ROLE_ADMIN);
+
+		assertThat(principal.getPassword()).isEqualTo("hash");
+		assertThat(principal.getInstitutionId()).isEqualTo("lab-1");
+		assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_LABORATORY", UserRole.USER_ROLE_REGULAR.name());
+	}
+
+	@Test
+	void evictsUsersOfInstitution() {
+		Mockito.when(userRepository.findByUsername("test_lab")).thenReturn(Optional.of(user("test_lab", "lab-1")));
+		Mockito.when(userRepository.findByUsername("other_lab")).thenReturn(Optional.of(user("other_lab", "lab-2")));
+		userDetailService.loadUserByUsername("test_lab");
+		userDetailService.loadUserByUsername("other_lab");
+
+		userDetailService.evictInstitution("lab-1");
+		userDetailService.loadUserByUsername("test_lab");
+		userDetailService.loadUserByUsername("other_lab");
+
+		Mockito.verify(userRepository, Mockito.times(2)).findByUsername("test_lab");
+		Mockito.verify(userRepository, Mockito.times(1)).findByUsername("other_lab");
+	}
+
+	@Test
+	void doesNotCacheUnknownUsers() {
+		Mockito.when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> userDetailService.loadUserByUsername("unknown")).isInstanceOf(UsernameNotFoundException.class);
+		assertThatThrownBy(() -> userDetailService.loadUserByUsername("unknown")).isInstanceOf(UsernameNotFoundException.class);
+		Mockito.verify(userRepository, Mockito.times(2)).findByUsername("unknown");
+	}
+
+	private static User user(String username, String institutionId) {
+		final Laboratory laboratory = new Laboratory();
+		laboratory.setId(institutionId);
+		return User.builder()
+				.username(username)
+				.password("hash")
+				.userRole(UserRole.USER_ROLE_REGULAR)
+				.institution(laboratory)
+				.build();
+	}
+}
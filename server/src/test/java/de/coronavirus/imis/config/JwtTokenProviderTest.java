@@ -0,0 +1,64 @@
+package de.coronavirus.imis.config;
+
+import de.coronavirus.imis.config.domain.SigningKey;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+	@Test
+	void verifiesToken() {
+		final JwtTokenProvider jwtTokenProvider = createProvider(60_000L);
+		final String token = jwtTokenProvider.createToken("test_lab", List.of("ROLE_LABORATORY"));
+
+		final VerifiedToken verified = jwtTokenProvider.verifyToken(token).orElseThrow();
+
+		assertThat(verified.getUsername()).isEqualTo("test_lab");
+		assertThat(verified.getRoles()).containsExactly("ROLE_LABORATORY");
+		assertThat(jwtTokenProvider.verifyToken(token)).containsSame(verified);
+	}
+
+	@Test
+	void rejectsTamperedAndForeignTokens() {
+		final JwtTokenProvider jwtTokenProvider = createProvider(60_000L);
+		final String token = jwtTokenProvider.createToken("test_lab", List.of("ROLE_LABORATORY"));
+		final String foreignToken = createProvider(60_000L).createToken("test_lab", List.of("ROLE_LABORATORY"));
+
+		assertThat(jwtTokenProvider.verifyToken(token.substring(0, token.length() - 2))).isEmpty();
+		assertThat(jwtTokenProvider.verifyToken(foreignToken)).isEmpty();
+		assertThat(jwtTokenProvider.verifyToken("no token")).isEmpty();
+	}
+
+	@Test
+	void rejectsExpiredToken() {
+		final JwtTokenProvider jwtTokenProvider = createProvider(60_000L);
+		ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", -1_000L);
+		final String token = jwtTokenProvider.createToken("test_lab", List.of("ROLE_LABORATORY"));
+
+		assertThat(jwtTokenProvider.verifyToken(token)).isEmpty();
+	}
+
+	private JwtTokenProvider createProvider(long validityInMilliseconds) {
+		final SigningKey key = new SigningKey(UUID.randomUUID().toString(),
+				Base64.getEncoder().encodeToString(UUID.randomUUID().toString().getBytes()),
+				Instant.now(), Instant.now().plusSeconds(60));
+		final SigningKeyService signingKeyService = Mockito.mock(SigningKeyService.class);
+		Mockito.when(signingKeyService.getSigningKey()).thenReturn(key);
+		Mockito.when(signingKeyService.findVerificationKey(key.getId())).thenReturn(Optional.of(key));
+		final JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(Mockito.mock(UserDetailsService.class),
+				signingKeyService);
+		ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", validityInMilliseconds);
+		jwtTokenProvider.init();
+		return jwtTokenProvider;
+	}
+}
@@ -0,0 +1,109 @@
+package de.coronavirus.imis.config;
+
+import de.coronavirus.imis.config.domain.SigningKey;
+import de.coronavirus.imis.config.domain.SigningKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+class SigningKeyServiceTest {
+
+	// keys in the database shared by all instances
+	private final List<SigningKey> database = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		database.clear();
+	}
+
+	@Test
+	void createsKeyOnce() {
+		final SigningKeyService signingKeyService = createService();
+
+		final SigningKey key = signingKeyService.getSigningKey();
+
+		assertThat(signingKeyService.getSigningKey()).isSameAs(key);
+		assertThat(database).containsExactly(key);
+		assertThat(SigningKeyService.decodeSecret(key)).hasSize(32);
+	}
+
+	@Test
+	void sharesKeysBetweenInstances() {
+		final SigningKeyService first = createService();
+		final SigningKeyService second = createService();
+		second.refresh();
+
+		final SigningKey key = first.getSigningKey();
+
+		assertThat(second.findVerificationKey(key.getId())).contains(key);
+		assertThat(second.getSigningKey()).isSameAs(key);
+	}
+
+	@Test
+	void rotatesKeyAndKeepsVerifyingWithOldKey() {
+		final SigningKey old = new SigningKey("old", "c2VjcmV0", Instant.now().minus(Duration.ofDays(2)),
+				Instant.now().plus(Duration.ofHours(1)));
+		database.add(old);
+		final SigningKeyService signingKeyService = createService();
+
+		final SigningKey current = signingKeyService.getSigningKey();
+
+		assertThat(current.getId()).isNotEqualTo(old.getId());
+		assertThat(signingKeyService.findVerificationKey(old.getId())).contains(old);
+	}
+
+	@Test
+	void rejectsExpiredAndUnknownKeys() {
+		database.add(new SigningKey("expired", "c2VjcmV0", Instant.now().minus(Duration.ofDays(3)),
+				Instant.now().minusSeconds(1)));
+		final SigningKeyService signingKeyService = createService();
+
+		assertThat(signingKeyService.findVerificationKey("expired")).isEmpty();
+		assertThat(signingKeyService.findVerificationKey("unknown")).isEmpty();
+	}
+
+	@Test
+	void loadsKeysForUnknownIdsOncePerReloadInterval() {
+		final SigningKeyRepository repository = createRepository();
+		final SigningKeyService signingKeyService = createService(repository);
+		ReflectionTestUtils.setField(signingKeyService, "reloadIntervalInMilliseconds", Duration.ofMinutes(1).toMillis());
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(signingKeyService.findVerificationKey(UUID.randomUUID().toString())).isEmpty();
+		}
+
+		Mockito.verify(repository, Mockito.times(1)).findAll();
+	}
+
+	private SigningKeyService createService() {
+		return createService(createRepository());
+	}
+
+	private SigningKeyRepository createRepository() {
+		final SigningKeyRepository repository = Mockito.mock(SigningKeyRepository.class);
+		Mockito.when(repository.findAll()).then(invocation -> new ArrayList<>(database));
+		Mockito.when(repository.save(any())).then(invocation -> {
+			database.add(invocation.getArgument(0));
+			return invocation.getArgument(0);
+		});
+		return repository;
+	}
+
+	private SigningKeyService createService(SigningKeyRepository repository) {
+		final SigningKeyService signingKeyService = new SigningKeyService(repository);
+		ReflectionTestUtils.setField(signingKeyService, "validityInMilliseconds", Duration.ofDays(1).toMillis());
+		ReflectionTestUtils.setField(signingKeyService, "rotationIntervalInMilliseconds", Duration.ofDays(1).toMillis());
+		ReflectionTestUtils.setField(signingKeyService, "reloadIntervalInMilliseconds", 0L);
+		return signingKeyService;
+	}
+}
@@ -0,0 +1,95 @@
+package de.coronavirus.imis.repositories;
+
+import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.domain.AdministrativeIncident;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Incident;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.QuarantineIncident;
+import de.coronavirus.imis.services.IncidentService;
+import de.coronavirus.imis.services.PatientService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statistics",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class IncidentRepositoryTest {
+
+	@Autowired
+	private IncidentRepository incidentRepository;
+	@Autowired
+	private IncidentService incidentService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Patient quarantined;
+	private Patient suspected;
+
+	@BeforeEach
+	void setUp() {
+		quarantined = addPatient();
+		incidentService.addOrUpdateIncident(quarantined.getId(), RequestQuarantineDTO.builder()
+				.status(EventType.QUARANTINE_MANDATED)
+				.build());
+		suspected = addPatient();
+	}
+
+	@Test
+	void findsIncidentsOfAllTypesWithOneQuery() {
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		final List<Incident> incidents = incidentRepository.findByPatientId(quarantined.getId());
+
+		assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+		assertThat(incidents).hasSize(2);
+		assertThat(incidents).hasAtLeastOneElementOfType(AdministrativeIncident.class);
+		assertThat(incidents).hasAtLeastOneElementOfType(QuarantineIncident.class);
+		assertThat(incidentRepository.findById(incidents.get(0).getId())).isPresent();
+	}
+
+	@Test
+	void findsIncidentsOfPatients() {
+		assertThat(incidentRepository.findByPatientIdIn(List.of(quarantined.getId(), suspected.getId())))
+				.extracting(incident -> incident.getPatient().getId())
+				.containsOnly(quarantined.getId(), suspected.getId())
+				.hasSize(3);
+	}
+
+	@Test
+	void pagesIncidentsOfTypes() {
+		final Page<Incident> page = incidentRepository.findByTypeIn(List.of(QuarantineIncident.class, AdministrativeIncident.class),
+				PageRequest.of(0, 2, Sort.by("id")));
+
+		assertThat(page.getContent()).hasSize(2);
+		assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(3);
+		assertThat(incidentRepository.findByPatientIdAndTypeIn(suspected.getId(), List.of(QuarantineIncident.class),
+				PageRequest.of(0, 10))).isEmpty();
+		assertThat(incidentRepository.findByPatientIdAndTypeIn(quarantined.getId(), List.of(QuarantineIncident.class),
+				PageRequest.of(0, 10)).getContent()).hasSize(1).allMatch(incident -> incident instanceof QuarantineIncident);
+	}
+
+	private Patient addPatient() {
+		return patientService.addPatient(new Patient()
+				.setFirstName("Vorfall")
+				.setLastName("Patient")
+				.setPatientStatus(EventType.SUSPECTED), LocalDate.of(2020, 4, 1));
+	}
+}
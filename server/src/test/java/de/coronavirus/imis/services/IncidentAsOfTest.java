@@ -0,0 +1,74 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Incident;
+import de.coronavirus.imis.domain.IncidentType;
+import de.coronavirus.imis.domain.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IncidentAsOfTest {
+
+	@Autowired
+	private IncidentService incidentService;
+	@Autowired
+	private PatientService patientService;
+
+	@Test
+	void returnsStateAtTimestamp() throws InterruptedException {
+		final String selected = addPatient();
+		final String released = addPatient();
+		final String untouched = addPatient();
+		quarantine(selected, EventType.QUARANTINE_SELECTED);
+		quarantine(released, EventType.QUARANTINE_MANDATED);
+		final LocalDateTime before = pause();
+		incidentService.updateQuarantineIncident(released, EventType.QUARANTINE_RELEASED, null);
+		quarantine(selected, EventType.QUARANTINE_MANDATED);
+		final LocalDateTime after = pause();
+
+		final List<String> patients = List.of(selected, released, untouched);
+		assertThat(quarantineStatus(before, patients)).isEqualTo(Map.of(
+				selected, EventType.QUARANTINE_SELECTED,
+				released, EventType.QUARANTINE_MANDATED));
+		assertThat(quarantineStatus(after, patients)).isEqualTo(Map.of(
+				selected, EventType.QUARANTINE_MANDATED,
+				released, EventType.QUARANTINE_RELEASED));
+		assertThat(incidentService.getAsOf(IncidentType.administrative, after, patients)).hasSize(3);
+		assertThat(incidentService.getAsOf(IncidentType.quarantine, LocalDateTime.of(2000, 1, 1, 0, 0), patients)).isEmpty();
+	}
+
+	private Map<String, EventType> quarantineStatus(LocalDateTime timestamp, List<String> patientIds) {
+		return incidentService.getAsOf(IncidentType.quarantine, timestamp, patientIds).stream()
+				.collect(Collectors.toMap(incident -> incident.getPatient().getId(), Incident::getEventType));
+	}
+
+	private String addPatient() {
+		return patientService.addPatient(new Patient()
+				.setFirstName("Stichtag")
+				.setLastName("Patient")
+				.setPatientStatus(EventType.SUSPECTED), LocalDate.of(2020, 4, 1)).getId();
+	}
+
+	private void quarantine(String patientId, EventType status) {
+		incidentService.addOrUpdateIncident(patientId, RequestQuarantineDTO.builder().status(status).build());
+	}
+
+	// Revision timestamps have a resolution of milliseconds
+	private static LocalDateTime pause() throws InterruptedException {
+		Thread.sleep(10);
+		final LocalDateTime now = LocalDateTime.now();
+		Thread.sleep(10);
+		return now;
+	}
+}
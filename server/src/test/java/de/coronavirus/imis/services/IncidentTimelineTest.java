@@ -0,0 +1,110 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.IncidentTimelineDTO;
+import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.api.exception.BadRequestException;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Incident;
+import de.coronavirus.imis.domain.IncidentType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.QuarantineIncident;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IncidentTimelineTest {
+
+	@Autowired
+	private IncidentService incidentService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Patient patient;
+
+	@BeforeEach
+	void setUp() {
+		patient = patientService.addPatient(new Patient()
+				.setFirstName("Tim")
+				.setLastName("Verlauf")
+				.setPatientStatus(EventType.SUSPECTED), LocalDate.of(2020, 4, 1));
+		incidentService.addIncident(patient, "timeline-lab", "timeline-doctor");
+		for (int i = 0; i < 4; i++) {
+			incidentService.addOrUpdateIncident(patient.getId(), RequestQuarantineDTO.builder()
+					.dateUntil("2020-05-0" + (i + 1))
+					.status(EventType.QUARANTINE_MANDATED)
+					.build());
+		}
+		incidentService.updateQuarantineIncident(patient.getId(), EventType.QUARANTINE_RELEASED, null);
+	}
+
+	@Test
+	void pagesMatchLog() {
+		final List<Incident> log = new ArrayList<>(incidentService.getLog(patient.getId(), true));
+		Collections.reverse(log);
+		assertThat(log).hasSize(7);
+
+		assertThat(versions(readTimeline(Set.of(), 2))).isEqualTo(versions(log));
+		assertThat(versions(readTimeline(Set.of(), 50))).isEqualTo(versions(log));
+	}
+
+	@Test
+	void pagesThroughVersionsAtSameTimestamp() {
+		for (String table : List.of("administrative_incident_aud", "test_incident_aud", "quarantine_incident_aud")) {
+			jdbcTemplate.update("update " + table + " set version_timestamp = ? where patient_id = ?",
+					Timestamp.valueOf("2020-04-01 12:00:00"), patient.getId());
+		}
+		final List<Incident> log = incidentService.getLog(patient.getId(), true);
+
+		// more versions at the timestamp of the cursor than fit a page
+		assertThat(versions(readTimeline(Set.of(), 1))).containsExactlyInAnyOrderElementsOf(versions(log));
+		assertThat(versions(readTimeline(Set.of(), 3))).containsExactlyInAnyOrderElementsOf(versions(log));
+	}
+
+	@Test
+	void filtersByType() {
+		final List<Incident> timeline = readTimeline(Set.of(IncidentType.quarantine), 3);
+
+		assertThat(timeline).hasSize(5).allMatch(incident -> incident instanceof QuarantineIncident);
+		assertThat(timeline.get(0).getEventType()).isEqualTo(EventType.QUARANTINE_RELEASED);
+	}
+
+	@Test
+	void rejectsInvalidPageToken() {
+		assertThatThrownBy(() -> incidentService.getTimeline(patient.getId(), Set.of(), "invalid", 10))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	private List<Incident> readTimeline(Set<IncidentType> types, int limit) {
+		final List<Incident> incidents = new ArrayList<>();
+		String after = null;
+		do {
+			final IncidentTimelineDTO page = incidentService.getTimeline(patient.getId(), types, after, limit);
+			assertThat(page.getIncidents().size()).isLessThanOrEqualTo(limit);
+			incidents.addAll(page.getIncidents());
+			after = page.getNextPageAfter();
+		} while (after != null);
+		return incidents;
+	}
+
+	private static List<String> versions(List<Incident> incidents) {
+		return incidents.stream()
+				.map(incident -> incident.getId() + " " + incident.getVersionTimestamp() + " " + incident.getEventType())
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,90 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.CreateLabTestDTO;
+import de.coronavirus.imis.api.dto.CreatePatientDTO;
+import de.coronavirus.imis.domain.AdministrativeIncident;
+import de.coronavirus.imis.domain.Laboratory;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.TestIncident;
+import de.coronavirus.imis.domain.TestType;
+import de.coronavirus.imis.domain.ZipStatistic;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Entities with ids assigned by the application are inserted without being read first, see
+ * {@link de.coronavirus.imis.domain.AssignedIdEntity}.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statistics",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InsertStatementsTest {
+
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private IncidentService incidentService;
+	@Autowired
+	private InstitutionService institutionService;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void addPatient() {
+		final CreatePatientDTO dto = new CreatePatientDTO();
+		dto.setFirstName("Erika");
+		dto.setLastName("Mustermann");
+		dto.setZip("99001");
+
+		statistics.clear();
+		final Patient patient = patientService.addPatient(dto, false);
+
+		// insert patient, patient event, zip statistic (an upsert, without reading it), administrative incident,
+		// revision (numbered by an identity column on H2) and audit row of the incident
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(6);
+		assertThat(statistics.getEntityStatistics(Patient.class.getName()).getLoadCount()).isZero();
+		assertThat(statistics.getEntityStatistics(ZipStatistic.class.getName()).getLoadCount()).isZero();
+		assertThat(statistics.getEntityStatistics(AdministrativeIncident.class.getName()).getLoadCount()).isZero();
+		assertThat(patient.isNew()).isFalse();
+	}
+
+	@Test
+	void addIncident() {
+		final CreatePatientDTO patientDto = new CreatePatientDTO();
+		patientDto.setFirstName("Max");
+		final Patient patient = patientService.addPatient(patientDto, false);
+		final Laboratory laboratory = new Laboratory();
+		laboratory.setName("Labor Statements");
+		institutionService.addInstitution(laboratory);
+		final CreateLabTestDTO dto = new CreateLabTestDTO();
+		dto.setPatientId(patient.getId());
+		dto.setLaboratoryId(laboratory.getId());
+		dto.setTestId("statements-1");
+		dto.setTestType(TestType.PCR);
+
+		statistics.clear();
+		incidentService.addIncident(dto);
+
+		// read patient (the laboratory comes from the second-level cache), insert test incident,
+		// revision and audit row
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+		assertThat(statistics.getEntityStatistics(TestIncident.class.getName()).getLoadCount()).isZero();
+		assertThat(statistics.getEntityStatistics(TestIncident.class.getName()).getInsertCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,85 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.InstitutionDTO;
+import de.coronavirus.imis.config.HibernateCacheConfig;
+import de.coronavirus.imis.domain.InstitutionType;
+import de.coronavirus.imis.domain.Laboratory;
+import de.coronavirus.imis.repositories.LaboratoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statistics",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InstitutionCacheTest {
+
+	@Autowired
+	private InstitutionService institutionService;
+	@Autowired
+	private LaboratoryRepository laboratoryRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void servesLaboratoriesFromCacheUntilTheyChange() {
+		final Laboratory laboratory = institutionService.addInstitution(laboratory("Cachelabor"));
+		institutionService.getAllLaboratories();
+
+		statistics.clear();
+		assertThat(institutionService.getAllLaboratories()).extracting(Laboratory::getName).contains("Cachelabor");
+		assertThat(laboratoryRepository.findById(laboratory.getId())).isPresent();
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+
+		// the new laboratory invalidates the cached query
+		institutionService.addInstitution(laboratory("Neues Labor"));
+		assertThat(institutionService.getAllLaboratories()).extracting(Laboratory::getName)
+				.contains("Cachelabor", "Neues Labor");
+
+		institutionService.updateInstitution(InstitutionDTO.builder()
+				.id(laboratory.getId())
+				.institutionType(InstitutionType.LABORATORY)
+				.name("Umbenanntes Labor")
+				.build());
+		statistics.clear();
+		assertThat(laboratoryRepository.findById(laboratory.getId()).orElseThrow().getName()).isEqualTo("Umbenanntes Labor");
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void exportsHitsAndMissesPerRegion() {
+		final Laboratory laboratory = institutionService.addInstitution(laboratory("Metriklabor"));
+		laboratoryRepository.findById(laboratory.getId());
+
+		assertThat(meterRegistry.get("cache.gets")
+				.tags("cache", HibernateCacheConfig.INSTITUTION_REGION, "result", "hit")
+				.functionCounter().count()).isPositive();
+		assertThat(meterRegistry.get("cache.gets")
+				.tags("cache", HibernateCacheConfig.INSTITUTION_QUERY_REGION, "result", "miss")
+				.functionCounter()).isNotNull();
+	}
+
+	private static Laboratory laboratory(String name) {
+		final Laboratory laboratory = new Laboratory();
+		laboratory.setName(name);
+		return laboratory;
+	}
+}
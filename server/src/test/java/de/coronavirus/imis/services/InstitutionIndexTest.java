@@ -0,0 +1,73 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.domain.Doctor;
+import de.coronavirus.imis.domain.InstitutionImpl;
+import de.coronavirus.imis.domain.InstitutionType;
+import de.coronavirus.imis.domain.Laboratory;
+import de.coronavirus.imis.repositories.InstitutionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstitutionIndexTest {
+
+	private InstitutionIndex institutionIndex;
+
+	@BeforeEach
+	void setUp() {
+		final InstitutionRepository institutionRepository = Mockito.mock(InstitutionRepository.class);
+		Mockito.when(institutionRepository.findAll()).thenReturn(List.of(
+				institution(new Laboratory(), "lab-1", "Labor Berlin", "Berlin"),
+				institution(new Laboratory(), "lab-2", "Zentrallabor Nord", "Hamburg"),
+				institution(new Laboratory(), "lab-3", "Bernau Diagnostik", "Bernau"),
+				institution(new Laboratory(), "lab-4", "Praxis am Berg", "Stuttgart"),
+				institution(new Doctor(), "doc-1", "Berliner Hausarzt", "Berlin")));
+		institutionIndex = new InstitutionIndex(institutionRepository);
+		ReflectionTestUtils.setField(institutionIndex, "limit", 3);
+		institutionIndex.rebuild();
+	}
+
+	@Test
+	void ranksMatchesOfAllAttributes() {
+		// name prefix, then word of the name or city prefix, then any other part
+		assertThat(institutionIndex.query("Ber", InstitutionType.LABORATORY)).containsExactly("lab-3", "lab-1", "lab-4");
+		assertThat(institutionIndex.query("labor", InstitutionType.LABORATORY)).containsExactly("lab-1", "lab-2");
+		assertThat(institutionIndex.query("LAB-2", null)).containsExactly("lab-2");
+		assertThat(institutionIndex.query("hausarzt", null)).containsExactly("doc-1");
+		assertThat(institutionIndex.query("hausarzt", InstitutionType.LABORATORY)).isEmpty();
+	}
+
+	@Test
+	void checksTermsLongerThanTheIndexedSubstrings() {
+		// "ber" and "lin" are both contained in "Labor Berlin", but only there in this order
+		assertThat(institutionIndex.query("berlin", InstitutionType.LABORATORY)).containsExactly("lab-1");
+		assertThat(institutionIndex.query("bernlin", null)).isEmpty();
+	}
+
+	@Test
+	void limitsMatches() {
+		assertThat(institutionIndex.query("", InstitutionType.LABORATORY)).hasSize(3);
+		assertThat(institutionIndex.query("a", null)).hasSize(3);
+	}
+
+	@Test
+	void replacesUpdatedInstitutions() {
+		institutionIndex.put(institution(new Laboratory(), "lab-2", "Zentrallabor Süd", "München"));
+		institutionIndex.put(institution(new Laboratory(), "lab-5", "Labor Nord", "Kiel"));
+
+		assertThat(institutionIndex.query("nord", null)).containsExactly("lab-5");
+		assertThat(institutionIndex.query("münchen", null)).containsExactly("lab-2");
+	}
+
+	private static InstitutionImpl institution(InstitutionImpl institution, String id, String name, String city) {
+		institution.setId(id);
+		institution.setName(name);
+		institution.setCity(city);
+		return institution;
+	}
+}
@@ -0,0 +1,184 @@
+package de.coronavirus.imis.services;
+
+import com.google.common.hash.Hashing;
+import de.coronavirus.imis.api.dto.CreateLabTestDTO;
+import de.coronavirus.imis.api.dto.CreatePatientDTO;
+import de.coronavirus.imis.api.dto.UpdateTestStatusDTO;
+import de.coronavirus.imis.api.exception.BadRequestException;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.LabTest;
+import de.coronavirus.imis.domain.LabTestNotFoundException;
+import de.coronavirus.imis.domain.Laboratory;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.PatientEvent;
+import de.coronavirus.imis.domain.TestIncident;
+import de.coronavirus.imis.domain.TestStatus;
+import de.coronavirus.imis.domain.TestType;
+import de.coronavirus.imis.domain.ZipStatistic;
+import de.coronavirus.imis.repositories.PatientEventRepository;
+import de.coronavirus.imis.repositories.PatientRepository;
+import de.coronavirus.imis.repositories.TestIncidentRepository;
+import de.coronavirus.imis.repositories.ZipStatisticRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statistics",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class LabResultServiceTest {
+
+	private static final String ZIP = "99100";
+
+	@Autowired
+	private LabResultService labResultService;
+	@Autowired
+	private LabTestService labTestService;
+	@Autowired
+	private IncidentService incidentService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private InstitutionService institutionService;
+	@Autowired
+	private PatientRepository patientRepository;
+	@Autowired
+	private PatientEventRepository patientEventRepository;
+	@Autowired
+	private TestIncidentRepository testIncidentRepository;
+	@Autowired
+	private ZipStatisticRepository zipStatisticRepository;
+	@Autowired
+	private BlobStore blobStore;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void appliesResultWithOneFlush() {
+		final Patient patient = addPatient(ZIP);
+		final Laboratory laboratory = addLaboratory();
+		registerTest(patient, laboratory, "result-1");
+
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		final LabTest labTest = labResultService.applyResult(laboratory.getId(), UpdateTestStatusDTO.builder()
+				.testId("result-1")
+				.status(TestStatus.TEST_POSITIVE)
+				.comment("positiv")
+				.build());
+
+		// the changes at the end of the transaction, then the audit rows Envers writes before the commit
+		assertThat(statistics.getFlushCount()).isEqualTo(2);
+		// read lab test and its laboratory, events of the test and test incident, lock the patient, read its
+		// latest event, upsert both buckets of the zip statistic, insert event, update lab test, patient and
+		// test incident, insert revision, insert audit row of the incident and end its previous audit row
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(15);
+
+		assertThat(labTest.getTestStatus()).isEqualTo(TestStatus.TEST_POSITIVE);
+		final TestIncident incident = testIncidentRepository.findFirstByTestIdAndLaboratoryId("result-1", laboratory.getId())
+				.orElseThrow();
+		assertThat(incident.getStatus()).isEqualTo(TestStatus.TEST_POSITIVE);
+		assertThat(incident.getEventType()).isEqualTo(EventType.TEST_FINISHED_POSITIVE);
+		assertThat(patientRepository.findById(patient.getId()).orElseThrow().getPatientStatus())
+				.isEqualTo(EventType.TEST_FINISHED_POSITIVE);
+		assertThat(patientEventRepository.findWithPatientByLabTest(labTest)).extracting(PatientEvent::getEventType)
+				.containsExactly(EventType.TEST_SUBMITTED_IN_PROGRESS, EventType.TEST_FINISHED_POSITIVE);
+		final Map<EventType, Long> counts = zipStatisticRepository.findAllByZipBetween(ZIP, ZIP).stream()
+				.collect(Collectors.toMap(ZipStatistic::getEventType, ZipStatistic::getPatientCount));
+		// buckets without patients are left out
+		assertThat(counts).containsOnly(entry(EventType.TEST_FINISHED_POSITIVE, 1L));
+	}
+
+	@Test
+	void acceptsOnlyHashesOfStoredReports() throws IOException {
+		final Laboratory laboratory = addLaboratory();
+		registerTest(addPatient("99101"), laboratory, "result-2");
+		final String stored = blobStore.put(new ByteArrayInputStream("PDF".getBytes(StandardCharsets.UTF_8)));
+
+		for (String reportHash : List.of("0".repeat(64), "../report")) {
+			assertThatThrownBy(() -> labResultService.applyResult(laboratory.getId(), result("result-2", reportHash)))
+					.isInstanceOf(BadRequestException.class);
+		}
+		assertThat(reportHash(laboratory, "result-2")).isNull();
+
+		assertThat(labResultService.applyResult(laboratory.getId(), result("result-2", stored)).getReportHash())
+				.isEqualTo(stored);
+		assertThat(reportHash(laboratory, "result-2")).isEqualTo(stored);
+	}
+
+	@Test
+	void storesInlineReportOnlyForValidResults() {
+		final Laboratory laboratory = addLaboratory();
+		registerTest(addPatient("99102"), laboratory, "result-3");
+		// the blob store outlives the database, so the report must not have been stored before
+		final byte[] report = ("inline report " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+		final String hash = Hashing.sha256().hashBytes(report).toString();
+		final UpdateTestStatusDTO unknownTest = result("unknown", null);
+		unknownTest.setFile(report);
+
+		assertThatThrownBy(() -> labResultService.applyResult(laboratory.getId(), unknownTest))
+				.isInstanceOf(LabTestNotFoundException.class);
+		assertThat(blobStore.exists(hash)).isFalse();
+
+		final UpdateTestStatusDTO inline = result("result-3", null);
+		inline.setFile(report);
+		labResultService.applyResult(laboratory.getId(), inline);
+		assertThat(blobStore.exists(hash)).isTrue();
+		assertThat(reportHash(laboratory, "result-3")).isEqualTo(hash);
+	}
+
+	private Patient addPatient(String zip) {
+		final CreatePatientDTO patientDto = new CreatePatientDTO();
+		patientDto.setFirstName("Lena");
+		patientDto.setZip(zip);
+		return patientService.addPatient(patientDto, false);
+	}
+
+	private Laboratory addLaboratory() {
+		final Laboratory laboratory = new Laboratory();
+		laboratory.setName("Labor Ergebnis");
+		institutionService.addInstitution(laboratory);
+		return laboratory;
+	}
+
+	// as registered by the LabTestController
+	private void registerTest(Patient patient, Laboratory laboratory, String testId) {
+		final CreateLabTestDTO test = new CreateLabTestDTO();
+		test.setPatientId(patient.getId());
+		test.setLaboratoryId(laboratory.getId());
+		test.setTestId(testId);
+		test.setTestType(TestType.PCR);
+		incidentService.addIncident(test);
+		labTestService.createLabTest(test);
+	}
+
+	private String reportHash(Laboratory laboratory, String testId) {
+		return testIncidentRepository.findFirstByTestIdAndLaboratoryId(testId, laboratory.getId())
+				.orElseThrow()
+				.getReportHash();
+	}
+
+	private static UpdateTestStatusDTO result(String testId, String reportHash) {
+		return UpdateTestStatusDTO.builder()
+				.testId(testId)
+				.status(TestStatus.TEST_NEGATIVE)
+				.reportHash(reportHash)
+				.build();
+	}
+}
@@ -0,0 +1,64 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalBlobStoreTest {
+
+	// SHA-256 of "report"
+	private static final String REPORT_HASH = "845e91831319e89c4d656bdb80c278ac09a7230d61e5dfd2e1b1fbb436ac8917";
+
+	@TempDir
+	Path directory;
+
+	private LocalBlobStore blobStore;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		blobStore = new LocalBlobStore();
+		ReflectionTestUtils.setField(blobStore, "directoryName", directory.toString());
+		blobStore.init();
+	}
+
+	@Test
+	void storesContentOnceUnderItsHash() throws IOException {
+		final String hash = blobStore.put(content("report"));
+
+		assertThat(hash).isEqualTo(REPORT_HASH);
+		assertThat(blobStore.put(content("report"))).isEqualTo(hash);
+		assertThat(blobStore.exists(hash)).isTrue();
+		assertThat(blobStore.put(content("other report"))).isNotEqualTo(hash);
+		try (Stream<Path> files = Files.walk(directory)) {
+			assertThat(files.filter(Files::isRegularFile)).hasSize(2);
+		}
+		try (InputStream stored = blobStore.get(hash).orElseThrow()) {
+			assertThat(new String(stored.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("report");
+		}
+	}
+
+	@Test
+	void rejectsInvalidHashes() throws IOException {
+		assertThat(blobStore.get("0".repeat(64))).isEmpty();
+		assertThat(blobStore.exists("0".repeat(64))).isFalse();
+		assertThatThrownBy(() -> blobStore.exists("0".repeat(63))).isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> blobStore.get("../" + "0".repeat(61))).isInstanceOf(BadRequestException.class);
+	}
+
+	private static InputStream content(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
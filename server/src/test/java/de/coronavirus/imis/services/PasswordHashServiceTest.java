@@ -0,0 +1,80 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+
+class PasswordHashServiceTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorService requests = Executors.newFixedThreadPool(2);
+	private PasswordHashService passwordHashService;
+
+	@AfterEach
+	void tearDown() {
+		requests.shutdownNow();
+		passwordHashService.shutdown();
+	}
+
+	@Test
+	void hashesAndRecordsLatency() {
+		final PasswordEncoder encoder = new BCryptPasswordEncoder(4);
+		passwordHashService = createService(encoder, 2, 10);
+
+		final String encoded = passwordHashService.encode("asdf");
+
+		assertThat(passwordHashService.matches("asdf", encoded)).isTrue();
+		assertThat(passwordHashService.matches("qwer", encoded)).isFalse();
+		assertThat(meterRegistry.get("imis.password.hash").timer().count()).isEqualTo(3);
+	}
+
+	@Test
+	void rejectsWhenQueueIsFull() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final PasswordEncoder encoder = Mockito.mock(PasswordEncoder.class);
+		Mockito.when(encoder.matches(any(), any())).then(invocation -> {
+			started.countDown();
+			release.await();
+			return true;
+		});
+		passwordHashService = createService(encoder, 1, 1);
+
+		final Future<Boolean> running = requests.submit(() -> passwordHashService.matches("a", "b"));
+		started.await();
+		final Future<Boolean> queued = requests.submit(() -> passwordHashService.matches("a", "b"));
+		while (meterRegistry.get("imis.password.hash.queue").gauge().value() < 1) {
+			Thread.sleep(1);
+		}
+
+		assertThatThrownBy(() -> passwordHashService.matches("a", "b")).isInstanceOf(ServiceUnavailableException.class);
+		assertThat(meterRegistry.get("imis.password.hash.rejected").counter().count()).isEqualTo(1);
+		release.countDown();
+		assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private PasswordHashService createService(PasswordEncoder encoder, int threads, int queueCapacity) {
+		final PasswordHashService service = new PasswordHashService(encoder, meterRegistry);
+		ReflectionTestUtils.setField(service, "threads", threads);
+		ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+		service.init();
+		return service;
+	}
+}
@@ -0,0 +1,121 @@
+package de.coronavirus.imis.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PatientExportServiceTest {
+
+	private static final String CITY = "Exportstadt";
+
+	@Autowired
+	private PatientExportService patientExportService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		if (patientService.countQueryPatients(search()) > 0) {
+			return;
+		}
+		addPatient("Anna", "Meier");
+		addPatient("Bernd", "Müller, \"Sen.\"");
+		addPatient("Clara", "Schulz");
+	}
+
+	@Test
+	void exportsCsv() {
+		final String[] lines = export(PatientExportService.Format.CSV).split("\r\n");
+
+		assertThat(lines).hasSize(4);
+		assertThat(lines[0]).startsWith("id,lastName,firstName,");
+		assertThat(lines[1]).contains(",Meier,Anna,");
+		assertThat(lines[2]).contains(",\"Müller, \"\"Sen.\"\"\",Bernd,");
+	}
+
+	@Test
+	void escapesFormulasInCsv() {
+		assertThat(PatientExportService.escapeCsv("=HYPERLINK(\"http://example.com\")"))
+				.isEqualTo("\"'=HYPERLINK(\"\"http://example.com\"\")\"");
+		assertThat(PatientExportService.escapeCsv("+49 30 123")).isEqualTo("\"'+49 30 123\"");
+		assertThat(PatientExportService.escapeCsv("-1")).isEqualTo("\"'-1\"");
+		assertThat(PatientExportService.escapeCsv("@SUM(A1)")).isEqualTo("\"'@SUM(A1)\"");
+		assertThat(PatientExportService.escapeCsv("a=b")).isEqualTo("a=b");
+		assertThat(PatientExportService.escapeCsv("")).isEmpty();
+	}
+
+	@Test
+	void exportsNdjson() throws IOException {
+		final List<JsonNode> rows = new ArrayList<>();
+		for (String line : export(PatientExportService.Format.NDJSON).split("\n")) {
+			rows.add(objectMapper.readTree(line));
+		}
+
+		assertThat(rows).extracting(row -> row.get("firstName").asText()).containsExactly("Anna", "Bernd", "Clara");
+		assertThat(rows.get(0).get("dateOfBirth").asText()).isEqualTo("1980-02-03");
+		assertThat(rows.get(0).get("patientStatus").asText()).isEqualTo(EventType.REGISTERED.name());
+	}
+
+	@Test
+	void evictsExportedPatients() {
+		final Integer managedEntities = new TransactionTemplate(transactionManager).execute(status -> {
+			export(PatientExportService.Format.CSV);
+			return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+		});
+
+		assertThat(managedEntities).isZero();
+	}
+
+	private String export(PatientExportService.Format format) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			patientExportService.export(search(), format, out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private PatientSearchParamsDTO search() {
+		final PatientSearchParamsDTO params = new PatientSearchParamsDTO();
+		params.setCity(CITY);
+		params.setOrderBy("firstName");
+		return params;
+	}
+
+	private void addPatient(String firstName, String lastName) {
+		patientService.addPatient(new Patient()
+				.setFirstName(firstName)
+				.setLastName(lastName)
+				.setCity(CITY)
+				.setDateOfBirth(LocalDate.of(1980, 2, 3))
+				.setPatientStatus(EventType.REGISTERED), LocalDate.of(2020, 4, 1));
+	}
+}
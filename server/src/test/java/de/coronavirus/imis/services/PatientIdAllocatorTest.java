@@ -0,0 +1,87 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.repositories.PatientRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statistics",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PatientIdAllocatorTest {
+
+	@Autowired
+	private PatientIdAllocator patientIdAllocator;
+	@Autowired
+	private PatientRepository patientRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void allocatesUniqueIdsAcrossBlocks() {
+		final Set<String> ids = new HashSet<>();
+		IntStream.range(0, 3 * PatientIdAllocator.BLOCK_SIZE).forEach(i -> ids.add(patientIdAllocator.nextId()));
+
+		assertThat(ids).hasSize(3 * PatientIdAllocator.BLOCK_SIZE).allSatisfy(id -> {
+			assertThat(id).hasSize(8).doesNotContainPattern("^[0-9A-F]{8}$");
+			assertThat(PatientIdAllocator.isValid(id)).isTrue();
+		});
+	}
+
+	@Test
+	void encodesWithCheckCharacter() {
+		assertThat(PatientIdAllocator.encode(PatientIdAllocator.FIRST)).startsWith("G000000");
+		assertThat(PatientIdAllocator.encode(PatientIdAllocator.LAST)).startsWith("ZZZZZZZ");
+		assertThatThrownBy(() -> PatientIdAllocator.encode(PatientIdAllocator.LAST + 1))
+				.isInstanceOf(IllegalStateException.class);
+
+		final String id = PatientIdAllocator.encode(PatientIdAllocator.FIRST + 123456789);
+		// every mistyped character is detected, and so is every swap of neighbours in this id
+		for (int index = 0; index < id.length(); index++) {
+			for (char c : PatientIdAllocator.ALPHABET.toCharArray()) {
+				if (c != id.charAt(index)) {
+					assertThat(PatientIdAllocator.isValid(id.substring(0, index) + c + id.substring(index + 1))).isFalse();
+				}
+			}
+		}
+		for (int index = 0; index + 1 < id.length(); index++) {
+			if (id.charAt(index) != id.charAt(index + 1)) {
+				final String swapped = id.substring(0, index) + id.charAt(index + 1) + id.charAt(index) + id.substring(index + 2);
+				assertThat(PatientIdAllocator.isValid(swapped)).isFalse();
+			}
+		}
+	}
+
+	@Test
+	void insertsNewPatientsWithoutReadingThem() {
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		final Patient patient = new Patient()
+				.setFirstName("Neu")
+				.setPatientStatus(EventType.REGISTERED);
+		patient.assignNewId(patientIdAllocator.nextId());
+
+		statistics.clear();
+		patientRepository.save(patient);
+
+		assertThat(statistics.getEntityStatistics(Patient.class.getName()).getInsertCount()).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(patient.isNew()).isFalse();
+
+		// saved again it is merged
+		patientRepository.save(patient.setLastName("Alt"));
+		assertThat(patientRepository.findById(patient.getId()).orElseThrow().getLastName()).isEqualTo("Alt");
+	}
+}
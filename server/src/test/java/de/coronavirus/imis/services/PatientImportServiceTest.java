@@ -0,0 +1,124 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.PatientImportResultDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.ZipStatistic;
+import de.coronavirus.imis.repositories.AdministrativeIncidentRepository;
+import de.coronavirus.imis.repositories.ZipStatisticRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PatientImportServiceTest {
+
+	@Autowired
+	private PatientImportService patientImportService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private PatientEventService eventService;
+	@Autowired
+	private AdministrativeIncidentRepository adminIncidentRepository;
+	@Autowired
+	private ZipStatisticRepository zipStatisticRepository;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void importsNdjsonAndReportsFailedRows() throws IOException {
+		final String ndjson = patient("Erste", "99901") + "\n"
+				+ "{\"lastName\": \"Falsch\", \"dateOfBirth\": \"01.01.1990\"}\n"
+				+ patient("Zweite", "99901") + "\n"
+				+ "{\"lastName\": \"Unbekannt\", \"patientStatus\": \"NO_STATUS\"}\n"
+				+ patient("Dritte", "99901") + "\n";
+
+		final PatientImportResultDTO result = importPatients(ndjson);
+
+		assertThat(result.getCreated()).isEqualTo(3);
+		assertThat(result.getFailed()).isEqualTo(2);
+		assertThat(result.getRows()).extracting(PatientImportResultDTO.Row::getIndex).containsExactly(0, 1, 2, 3, 4);
+		assertThat(result.getRows().get(1).getError()).isNotNull();
+		assertThat(result.getRows().get(3).getError()).isNotNull();
+		for (int index : new int[]{0, 2, 4}) {
+			final Patient patient = patientService.findPatientById(result.getRows().get(index).getPatientId()).orElseThrow();
+			assertThat(patient.getPatientStatus()).isEqualTo(EventType.SUSPECTED);
+			assertThat(eventService.findFirstByPatientOrderByEventTimestampDesc(patient).getEventType())
+					.isEqualTo(EventType.SUSPECTED);
+			assertThat(adminIncidentRepository.findByPatientId(patient.getId())).hasSize(1);
+		}
+		assertThat(zipStatisticRepository.findById(new ZipStatistic.Key("99901", EventType.SUSPECTED)))
+				.map(ZipStatistic::getPatientCount)
+				.contains(3L);
+	}
+
+	@Test
+	void importsJsonArrayAcrossChunksAndKeepsValidRowsOfFailedChunk() throws IOException {
+		final int rows = PatientImportService.CHUNK_SIZE + 10;
+		final int tooLong = PatientImportService.CHUNK_SIZE + 5;
+		final String json = IntStream.range(0, rows)
+				.mapToObj(i -> patient(i == tooLong ? "x".repeat(3000) : "Reihe" + i, "99902"))
+				.collect(Collectors.joining(",", "[", "]"));
+
+		final PatientImportResultDTO result = importPatients(json);
+
+		assertThat(result.getCreated()).isEqualTo(rows - 1);
+		assertThat(result.getFailed()).isEqualTo(1);
+		assertThat(result.getRows().get(tooLong).getPatientId()).isNull();
+		assertThat(result.getRows().get(tooLong + 1).getPatientId()).isNotNull();
+		assertThat(zipStatisticRepository.findById(new ZipStatistic.Key("99902", EventType.SUSPECTED)))
+				.map(ZipStatistic::getPatientCount)
+				.contains((long) rows - 1);
+	}
+
+	@Test
+	void keepsCollectionsOfRowsRetriedAfterFailedChunk() throws IOException {
+		final String withSymptoms = "{\"firstName\": \"Symptome\", \"lastName\": \"Import\", \"zip\": \"99904\", "
+				+ "\"symptoms\": [\"Husten\", \"Fieber\"], \"riskAreas\": [\"Tirol\"]}";
+		final String ndjson = withSymptoms + "\n" + withSymptoms + "\n"
+				+ patient("x".repeat(3000), "99904") + "\n" + withSymptoms + "\n";
+
+		final PatientImportResultDTO result = importPatients(ndjson);
+
+		assertThat(result.getCreated()).isEqualTo(3);
+		for (int index : new int[]{0, 1, 3}) {
+			final String id = result.getRows().get(index).getPatientId();
+			final List<Set<String>> collections = new TransactionTemplate(transactionManager).execute(status -> {
+				final Patient patient = patientService.findPatientById(id).orElseThrow();
+				return List.of(Set.copyOf(patient.getSymptoms()), Set.copyOf(patient.getRiskAreas()));
+			});
+			assertThat(collections).containsExactly(Set.of("Husten", "Fieber"), Set.of("Tirol"));
+		}
+	}
+
+	@Test
+	void keepsRowsBeforeMalformedJson() throws IOException {
+		final PatientImportResultDTO result = importPatients(patient("Vorher", "99903") + "\n{\"lastName\": ");
+
+		assertThat(result.getCreated()).isEqualTo(1);
+		assertThat(result.getFailed()).isEqualTo(1);
+		assertThat(result.getRows().get(1).getError()).isNotNull();
+	}
+
+	private PatientImportResultDTO importPatients(String json) throws IOException {
+		return patientImportService.importPatients(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), true);
+	}
+
+	private static String patient(String firstName, String zip) {
+		return "{\"firstName\": \"" + firstName + "\", \"lastName\": \"Import\", \"zip\": \"" + zip
+				+ "\", \"dateOfBirth\": \"1990-01-01\", \"dateOfReporting\": \"2020-04-01\"}";
+	}
+}
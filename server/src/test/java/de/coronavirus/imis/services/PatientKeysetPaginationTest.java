@@ -0,0 +1,104 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PatientKeysetPaginationTest {
+
+	private static final String CITY = "Keysethausen";
+
+	@Autowired
+	private PatientService patientService;
+
+	@BeforeEach
+	void setUp() {
+		if (patientService.countQueryPatients(search("id", "asc")) > 0) {
+			return;
+		}
+		for (int i = 0; i < 23; i++) {
+			var patient = new Patient()
+					.setFirstName("Kim")
+					// duplicates force the id to break ties
+					.setLastName("Keyset" + (i % 4))
+					.setGender("female")
+					.setStreet("Hauptstrasse")
+					.setHouseNumber(String.valueOf(i))
+					.setZip("12345")
+					.setCity(CITY)
+					.setInsuranceCompany("AOK")
+					// some patients without date of birth to cover null values
+					.setDateOfBirth(i % 5 == 0 ? null : LocalDate.of(1950 + i % 7, 1, 1))
+					.setPatientStatus(EventType.SUSPECTED);
+			patientService.addPatient(patient, LocalDate.now());
+		}
+	}
+
+	@Test
+	void keysetPagesMatchSingleQuery() {
+		for (String orderBy : List.of("id", "lastName", "dateOfBirth")) {
+			for (String order : List.of("asc", "desc")) {
+				final PatientSearchParamsDTO all = search(orderBy, order);
+				all.setPageSize(100L);
+				final List<String> expected = ids(patientService.queryPatients(all));
+				assertThat(expected).hasSize(23);
+
+				assertThat(readWithKeyset(orderBy, order)).as(orderBy + " " + order).isEqualTo(expected);
+			}
+		}
+	}
+
+	@Test
+	void seeksWithRowValueComparison() {
+		final PatientCursor ascending = new PatientCursor("lastName", Sort.Direction.ASC, "Keyset1", "G000001");
+		assertThat(ascending.getSeeks("pat", 3)).extracting(PatientCursor.Seek::getSql).containsExactly(
+				"AND (pat.lastName, pat.id) > (?3, ?4) ",
+				"AND pat.lastName is null ");
+		assertThat(ascending.getSeeks("pat", 3).get(0).getParameters()).containsExactly("Keyset1", "G000001");
+
+		final PatientCursor descendingInNulls = new PatientCursor("lastName", Sort.Direction.DESC, null, "G000001");
+		assertThat(descendingInNulls.getSeeks("pat", 1)).extracting(PatientCursor.Seek::getSql).containsExactly(
+				"AND pat.lastName is null AND pat.id < ?1 ",
+				"AND pat.lastName is not null ");
+	}
+
+	private List<String> readWithKeyset(String orderBy, String order) {
+		final List<String> result = new ArrayList<>();
+		Optional<String> after = Optional.empty();
+		do {
+			final PatientSearchParamsDTO params = search(orderBy, order);
+			params.setPageSize(4L);
+			params.setAfter(after.orElse(null));
+			final List<Patient> page = patientService.queryPatients(params);
+			result.addAll(ids(page));
+			after = patientService.getNextPageToken(params, page);
+		} while (after.isPresent());
+		return result;
+	}
+
+	private static PatientSearchParamsDTO search(String orderBy, String order) {
+		final PatientSearchParamsDTO params = new PatientSearchParamsDTO();
+		params.setCity(CITY);
+		params.setOrderBy(orderBy);
+		params.setOrder(order);
+		return params;
+	}
+
+	private static List<String> ids(List<Patient> patients) {
+		return patients.stream().map(Patient::getId).collect(Collectors.toList());
+	}
+}
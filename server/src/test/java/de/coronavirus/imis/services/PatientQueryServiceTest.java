@@ -0,0 +1,180 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.api.dto.RequestQuarantineDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PatientQueryServiceTest {
+
+	private static final String CITY = "Quarantaenestadt";
+
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private IncidentService incidentService;
+	@Autowired
+	private PatientQueryService patientQueryService;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@BeforeEach
+	void setUp() {
+		if (patientService.countQueryPatients(search()) > 0) {
+			return;
+		}
+		// the house number is left empty on purpose, unset filters must not exclude null values
+		addPatient("Mandated", EventType.QUARANTINE_MANDATED, Set.of("Husten", "Fieber"), Set.of("Tirol"));
+		addPatient("Selected", EventType.QUARANTINE_SELECTED, Set.of("Husten"), null);
+		addPatient("Without", null, null, null);
+	}
+
+	@Test
+	void filtersByQuarantineStatus() {
+		assertThat(lastNames(EventType.QUARANTINE_MANDATED)).containsExactly("Mandated");
+		assertThat(lastNames(EventType.QUARANTINE_MANDATED, EventType.QUARANTINE_SELECTED))
+				.containsExactly("Mandated", "Selected");
+		assertThat(lastNames((EventType) null)).containsExactly("Without");
+		assertThat(lastNames(EventType.QUARANTINE_SELECTED, null)).containsExactly("Selected", "Without");
+		assertThat(lastNames(EventType.QUARANTINE_RELEASED)).isEmpty();
+	}
+
+	@Test
+	void filtersBySymptomsAndRiskAreas() {
+		final PatientSearchParamsDTO params = search();
+		params.setSymptoms(List.of("Fieber"));
+		assertThat(lastNames(params)).containsExactly("Mandated");
+
+		params.setSymptoms(List.of("Husten", "Fieber"));
+		assertThat(lastNames(params)).containsExactly("Mandated", "Selected");
+		assertThat(patientService.countQueryPatients(params)).isEqualTo(2L);
+
+		params.setRiskAreas(List.of("Tirol"));
+		assertThat(lastNames(params)).containsExactly("Mandated");
+
+		params.setPreIllnesses(List.of("Herz-Kreislauf"));
+		assertThat(lastNames(params)).isEmpty();
+
+		params.setPreIllnesses(List.of(""));
+		assertThat(lastNames(params)).containsExactly("Mandated");
+		final Set<String> symptoms = new TransactionTemplate(transactionManager).execute(status ->
+				Set.copyOf(patientService.queryPatients(params).get(0).getSymptoms()));
+		assertThat(symptoms).containsOnly("Husten", "Fieber");
+	}
+
+	@Test
+	void countsEachPatientOnce() {
+		final PatientSearchParamsDTO params = search();
+		params.setPageSize(100L);
+
+		assertThat(patientService.countQueryPatients(params)).isEqualTo(3L);
+		assertThat(patientService.queryPatients(params)).hasSize(3);
+	}
+
+	@Test
+	void nativeFiltersMatchQuery() {
+		final PatientSearchParamsDTO params = search();
+		params.setQuarantineStatus(Arrays.asList(EventType.QUARANTINE_SELECTED, null));
+		assertThat(nativeCount(params)).isEqualTo(2L);
+
+		params.setQuarantineStatus(List.of(EventType.QUARANTINE_MANDATED, EventType.QUARANTINE_SELECTED));
+		params.setSymptoms(List.of("Husten", "Fieber"));
+		params.setRiskAreas(List.of("Tirol"));
+		params.setPreIllnesses(List.of(""));
+		params.setGender("");
+		params.setLastName("mand");
+		assertThat(nativeCount(params)).isEqualTo(patientService.countQueryPatients(params)).isEqualTo(1L);
+	}
+
+	@Test
+	void queriesPageWithCount() {
+		final PatientSearchParamsDTO params = search();
+		params.setPageSize(2L);
+
+		var first = patientService.queryPatientsPage(params, false);
+		assertThat(first.getPatients()).extracting(Patient::getLastName).containsExactly("Mandated", "Selected");
+		assertThat(first.getCount()).isEqualTo(3L);
+		assertThat(first.isCountEstimated()).isFalse();
+
+		// the count must not be restricted to the rows after the keyset
+		params.setAfter(first.getNextPageAfter());
+		var second = patientService.queryPatientsPage(params, true);
+		assertThat(second.getPatients()).extracting(Patient::getLastName).containsExactly("Without");
+		assertThat(second.getCount()).isEqualTo(3L);
+		assertThat(second.getNextPageAfter()).isNull();
+
+		params.setAfter(null);
+		params.setOffsetPage(5L);
+		var behindLastPage = patientService.queryPatientsPage(params, false);
+		assertThat(behindLastPage.getPatients()).isEmpty();
+		assertThat(behindLastPage.getCount()).isEqualTo(3L);
+	}
+
+	private void addPatient(String lastName, EventType quarantineStatus, Set<String> symptoms, Set<String> riskAreas) {
+		var patient = patientService.addPatient(new Patient()
+				.setFirstName("Robin")
+				.setLastName(lastName)
+				.setCity(CITY)
+				.setSymptoms(symptoms)
+				.setRiskAreas(riskAreas)
+				.setPatientStatus(EventType.SUSPECTED), LocalDate.now());
+		if (quarantineStatus != null) {
+			incidentService.addOrUpdateIncident(patient.getId(),
+					RequestQuarantineDTO.builder().status(quarantineStatus).build());
+		}
+	}
+
+	private List<String> lastNames(EventType... quarantineStatus) {
+		final PatientSearchParamsDTO params = search();
+		params.setQuarantineStatus(Arrays.asList(quarantineStatus));
+		return lastNames(params);
+	}
+
+	private List<String> lastNames(PatientSearchParamsDTO params) {
+		return patientService.queryPatients(params).stream()
+				.map(Patient::getLastName)
+				.collect(Collectors.toList());
+	}
+
+	// the where clause the estimate is planned for, counted on H2
+	private long nativeCount(PatientSearchParamsDTO params) {
+		final List<Object> parameters = new ArrayList<>();
+		final Query query = entityManager.createNativeQuery("select count(*) from patient pat "
+				+ patientQueryService.getQueryPatientsNativeSql(params, parameters));
+		for (int i = 0; i < parameters.size(); i++) {
+			query.setParameter(i + 1, parameters.get(i));
+		}
+		return ((Number) query.getSingleResult()).longValue();
+	}
+
+	private static PatientSearchParamsDTO search() {
+		final PatientSearchParamsDTO params = new PatientSearchParamsDTO();
+		params.setCity(CITY);
+		params.setOrderBy("lastName");
+		params.setOrder("asc");
+		params.setOffsetPage(0L);
+		params.setPageSize(25L);
+		return params;
+	}
+}
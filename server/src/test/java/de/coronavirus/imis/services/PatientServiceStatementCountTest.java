@@ -0,0 +1,98 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.PatientSearchParamsDTO;
+import de.coronavirus.imis.api.dto.CreatePatientDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Illness;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.PatientEvent;
+import de.coronavirus.imis.repositories.PatientEventRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads and checks all patients, so it runs on a database of its own: patients other tests store without
+ * events, such as those of {@link PatientIdAllocatorTest}, have no latest event to compare.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:statementcount",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PatientServiceStatementCountTest {
+
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private PatientEventService patientEventService;
+	@Autowired
+	private PatientEventRepository patientEventRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void getAllPatientsLoadsLatestEventsWithOneStatement() {
+		final List<Patient> patients = patientService.getAllPatients();
+
+		// one statement for the patients, one for their latest events
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(patients).hasSizeGreaterThan(1);
+		assertLatestEvents(patients);
+	}
+
+	@Test
+	void queryPatientsLoadsLatestEventsWithOneStatementPerPage() {
+		final PatientSearchParamsDTO params = new PatientSearchParamsDTO();
+		params.setIncludePatientEvents(true);
+		params.setPageSize(50L);
+
+		final List<Patient> patients = patientService.queryPatients(params);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(patients).isNotEmpty();
+		assertLatestEvents(patients);
+	}
+
+	@Test
+	void loadsLatestEventOfEventsAtSameTimestampByGreatestId() {
+		final CreatePatientDTO dto = new CreatePatientDTO();
+		dto.setFirstName("Gleichzeitig");
+		final Patient patient = patientService.addPatient(dto, false);
+		final Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now().plusMinutes(1));
+		for (EventType eventType : List.of(EventType.SUSPECTED, EventType.ORDER_TEST, EventType.SCHEDULED_FOR_TESTING)) {
+			patientEventService.addEvent(new PatientEvent()
+					.setIllness(Illness.CORONA)
+					.setEventType(eventType)
+					.setEventTimestamp(timestamp)
+					.setPatient(patient));
+		}
+
+		// the same event the zip statistic counts the patient by
+		assertLatestEvents(patientService.getAllPatients());
+	}
+
+	private void assertLatestEvents(List<Patient> patients) {
+		patients.forEach(patient -> {
+			var expected = patientEventRepository.findFirstByPatientOrderByEventTimestampDescIdDesc(patient);
+			assertThat(patient.getEvents()).extracting(PatientEvent::getId).containsExactly(expected.getId());
+		});
+	}
+}
@@ -22,10 +22,11 @@ class PatientServiceTest {
 		Mockito.when(queryServiceMock.getQuery(any(), any(), any())).thenReturn(Mockito.mock(TypedQuery.class));
 		final PatientService patientService = new PatientService(Mockito.mock(PatientRepository.class),
 				Mockito.mock(PatientEventService.class),
-				new RandomService(),
+				Mockito.mock(PatientIdAllocator.class),
 				patientMapper,
 				Mockito.mock(IncidentService.class),
-				queryServiceMock
+				queryServiceMock,
+				Mockito.mock(ZipStatisticService.class)
 		);
 		final PatientSearchParamsDTO patientSearchParamsDTO = new PatientSearchParamsDTO();
 		patientSearchParamsDTO.setOrder(null);
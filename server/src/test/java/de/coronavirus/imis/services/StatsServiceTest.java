@@ -0,0 +1,28 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.AggregationResultZip;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StatsServiceTest {
+
+	@Autowired
+	private StatsService statsService;
+
+	@Test
+	void incrementalZipStatisticMatchesRebuild() {
+		final List<AggregationResultZip> incremental = statsService.resultZipList("0", "99999");
+		assertThat(incremental).isNotEmpty();
+
+		var rebuild = statsService.rebuildZipStatistics();
+
+		assertThat(rebuild.getMismatches()).isEmpty();
+		assertThat(statsService.resultZipList("0", "99999")).containsExactlyInAnyOrderElementsOf(incremental);
+	}
+}
@@ -0,0 +1,115 @@
+package de.coronavirus.imis.services;
+
+import de.coronavirus.imis.api.dto.CreatePatientDTO;
+import de.coronavirus.imis.domain.EventType;
+import de.coronavirus.imis.domain.Illness;
+import de.coronavirus.imis.domain.Patient;
+import de.coronavirus.imis.domain.PatientEvent;
+import de.coronavirus.imis.domain.ZipStatistic;
+import de.coronavirus.imis.repositories.ZipStatisticRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@SpringBootTest
+class ZipStatisticServiceTest {
+
+	private static final int THREADS = 4;
+
+	@Autowired
+	private ZipStatisticService zipStatisticService;
+	@Autowired
+	private PatientEventService patientEventService;
+	@Autowired
+	private PatientService patientService;
+	@Autowired
+	private StatsService statsService;
+	@Autowired
+	private ZipStatisticRepository zipStatisticRepository;
+
+	@Test
+	void upsertCreatesBucketAndAddsToIt() {
+		zipStatisticService.addToPatientCount("99201", EventType.SUSPECTED, 2);
+		zipStatisticService.addToPatientCount("99201", EventType.SUSPECTED, 1);
+
+		assertThat(counts("99201")).containsOnly(entry(EventType.SUSPECTED, 3L));
+		// without patients behind it, the bucket would differ from a rebuild
+		zipStatisticService.addToPatientCount("99201", EventType.SUSPECTED, -3);
+	}
+
+	@Test
+	void concurrentEventsOfPatientKeepStatisticExact() {
+		final CreatePatientDTO dto = new CreatePatientDTO();
+		dto.setFirstName("Parallel");
+		dto.setZip("99202");
+		final Patient patient = patientService.addPatient(dto, false);
+
+		runConcurrently(() -> patientEventService.addEvent(new PatientEvent()
+				.setIllness(Illness.CORONA)
+				.setEventType(EventType.QUARANTINE_MANDATED)
+				.setEventTimestamp(Timestamp.valueOf(LocalDateTime.now()))
+				.setPatient(patient)));
+
+		assertThat(counts("99202")).containsOnly(entry(EventType.QUARANTINE_MANDATED, 1L));
+		assertThat(mismatches("99202")).isEmpty();
+	}
+
+	@Test
+	void rebuildCountsPatientOnceForEventsAtSameTime() {
+		final CreatePatientDTO dto = new CreatePatientDTO();
+		dto.setFirstName("Gleichzeitig");
+		dto.setZip("99203");
+		final Patient patient = patientService.addPatient(dto, false);
+		final Timestamp timestamp = Timestamp.valueOf(LocalDateTime.now().plusMinutes(1));
+		for (EventType eventType : List.of(EventType.SUSPECTED, EventType.ORDER_TEST)) {
+			patientEventService.addEvent(new PatientEvent()
+					.setIllness(Illness.CORONA)
+					.setEventType(eventType)
+					.setEventTimestamp(timestamp)
+					.setPatient(patient));
+		}
+
+		assertThat(mismatches("99203")).isEmpty();
+		assertThat(counts("99203").values()).containsExactly(1L);
+	}
+
+	private static void runConcurrently(Runnable action) {
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				action.run();
+			}));
+		}
+		start.countDown();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+	}
+
+	private List<String> mismatches(String zip) {
+		return statsService.rebuildZipStatistics().getMismatches().stream()
+				.filter(mismatch -> mismatch.startsWith(zip + "/"))
+				.collect(Collectors.toList());
+	}
+
+	private Map<EventType, Long> counts(String zip) {
+		return zipStatisticRepository.findAllByZipBetween(zip, zip).stream()
+				.collect(Collectors.toMap(ZipStatistic::getEventType, ZipStatistic::getPatientCount));
+	}
+}